@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one print job grid page fetch with a fresh connection per borrow versus the pooled data source.
+ * Needs a running MariaDB with the print server schema, set via {@code -Ddb.url}, {@code -Ddb.user} and
+ * {@code -Ddb.password}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class DataSourceBenchmark {
+
+  private static final String GRID_PAGE = "SELECT j.id, j.file_name, j.printed_pages, j.costs, j.timestamp, "
+      + "p.name, u.username FROM print_job j JOIN printer p ON p.id = j.printer_id "
+      + "JOIN application_user u ON u.id = j.user_id ORDER BY j.timestamp DESC LIMIT ? OFFSET ?";
+
+  @Param({"driverManager", "pooled"})
+  public String dataSource;
+
+  @Param({"50"})
+  public int pageSize;
+
+  private DataSource ds;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    String url = System.getProperty("db.url", "jdbc:mariadb://localhost:3306/print_server");
+    String user = System.getProperty("db.user", "root");
+    String password = System.getProperty("db.password", "insecure-password");
+
+    if (this.dataSource.equals("pooled")) {
+      HikariConfig config = new HikariConfig();
+      config.setJdbcUrl(url);
+      config.setUsername(user);
+      config.setPassword(password);
+      config.setMaximumPoolSize(10);
+      config.addDataSourceProperty("useServerPrepStmts", "true");
+      config.addDataSourceProperty("cachePrepStmts", "true");
+      config.addDataSourceProperty("useBulkStmts", "true");
+      this.ds = new HikariDataSource(config);
+    } else {
+      DriverManagerDataSource dataSource = new DriverManagerDataSource(url, user, password);
+      dataSource.setDriverClassName("org.mariadb.jdbc.Driver");
+      this.ds = dataSource;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (this.ds instanceof HikariDataSource hikari) {
+      hikari.close();
+    }
+  }
+
+  @Benchmark
+  public void gridFetch(Blackhole bh) throws SQLException {
+    try (Connection connection = this.ds.getConnection();
+         PreparedStatement statement = connection.prepareStatement(GRID_PAGE)) {
+      statement.setInt(1, this.pageSize);
+      statement.setInt(2, 0);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          bh.consume(rs.getLong(1));
+          bh.consume(rs.getString(2));
+          bh.consume(rs.getDouble(4));
+        }
+      }
+    }
+  }
+}
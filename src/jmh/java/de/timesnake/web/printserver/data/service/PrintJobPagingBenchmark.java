@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first and a deep page of the print job history with offset and with keyset paging. On the first
+ * run a table {@code print_job_bench} with the schema and indexes of {@code print_job} is filled with generated
+ * rows. Needs a scratch MariaDB database (with the sequence engine) set via {@code -Ddb.url}, {@code -Ddb.user}
+ * and {@code -Ddb.password}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrintJobPagingBenchmark {
+
+  private static final int ROWS = 10_000_000;
+  private static final int USERS = 1000;
+  private static final int PAGE_SIZE = 50;
+
+  private static final String COLUMNS = "id, file_name, printed_pages, costs, timestamp";
+
+  @Param({"offset", "keyset"})
+  public String paging;
+
+  @Param({"0", "5000000"})
+  public int depth;
+
+  private Connection connection;
+  private PreparedStatement statement;
+
+  private Timestamp cursorTimestamp;
+  private long cursorId;
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    this.connection = DriverManager.getConnection(
+        System.getProperty("db.url", "jdbc:mariadb://localhost:3306/print_server_bench"),
+        System.getProperty("db.user", "root"), System.getProperty("db.password", "insecure-password"));
+
+    this.generate();
+
+    if (this.depth > 0) {
+      try (PreparedStatement cursor = this.connection.prepareStatement("SELECT timestamp, id FROM print_job_bench "
+          + "ORDER BY timestamp DESC, id DESC LIMIT 1 OFFSET ?")) {
+        cursor.setInt(1, this.depth - 1);
+        try (ResultSet rs = cursor.executeQuery()) {
+          rs.next();
+          this.cursorTimestamp = rs.getTimestamp(1);
+          this.cursorId = rs.getLong(2);
+        }
+      }
+    }
+
+    if (this.paging.equals("keyset") && this.depth > 0) {
+      this.statement = this.connection.prepareStatement("SELECT " + COLUMNS + " FROM print_job_bench "
+          + "WHERE timestamp < ? OR (timestamp = ? AND id < ?) ORDER BY timestamp DESC, id DESC LIMIT ?");
+      this.statement.setTimestamp(1, this.cursorTimestamp);
+      this.statement.setTimestamp(2, this.cursorTimestamp);
+      this.statement.setLong(3, this.cursorId);
+      this.statement.setInt(4, PAGE_SIZE);
+    } else {
+      this.statement = this.connection.prepareStatement("SELECT " + COLUMNS + " FROM print_job_bench "
+          + "ORDER BY timestamp DESC, id DESC LIMIT ? OFFSET ?");
+      this.statement.setInt(1, PAGE_SIZE);
+      this.statement.setInt(2, this.depth);
+    }
+  }
+
+  private void generate() throws SQLException {
+    try (Statement st = this.connection.createStatement()) {
+      st.execute("CREATE TABLE IF NOT EXISTS print_job_bench (id BIGINT PRIMARY KEY, cups_id VARCHAR(255) NOT NULL, "
+          + "document_pages INT NOT NULL, selected_pages INT NOT NULL, printed_pages INT NOT NULL, "
+          + "costs BIGINT NOT NULL, printer_id BIGINT NOT NULL, user_id BIGINT NOT NULL, file_name VARCHAR(255), "
+          + "timestamp DATETIME NOT NULL, "
+          + "INDEX idx_print_job_user_timestamp (user_id, timestamp), "
+          + "INDEX idx_print_job_printer_timestamp (printer_id, timestamp), "
+          + "INDEX idx_print_job_timestamp (timestamp))");
+
+      try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM print_job_bench")) {
+        rs.next();
+        if (rs.getLong(1) >= ROWS) {
+          return;
+        }
+      }
+
+      st.execute("TRUNCATE TABLE print_job_bench");
+      st.execute("INSERT INTO print_job_bench SELECT seq, CONCAT('printer-', seq), 10, 10, 10, 100, seq % 3, "
+          + "seq % " + USERS + ", CONCAT('document-', seq, '.pdf'), "
+          + "TIMESTAMP '2020-01-01 00:00:00' + INTERVAL (seq DIV 2) SECOND FROM seq_1_to_" + ROWS);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    this.statement.close();
+    this.connection.close();
+  }
+
+  @Benchmark
+  public void page(Blackhole bh) throws SQLException {
+    try (ResultSet rs = this.statement.executeQuery()) {
+      while (rs.next()) {
+        bh.consume(rs.getLong(1));
+        bh.consume(rs.getString(2));
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import com.itextpdf.text.DocumentException;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts uploaded photos to one pdf. Scans at 150 dpi are embedded as they are, 600 dpi scans are downscaled
+ * to the configured 300 dpi and encoded again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImageConverterBenchmark {
+
+  @Param({"1", "20"})
+  public int images;
+
+  @Param({"150", "600"})
+  public int scanDpi;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private ImageConverter converter;
+  private List<File> srcFiles;
+  private File dstFile;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.converter = new ImageConverter(300, this.threads);
+    this.dstFile = Files.createTempFile("images", ".pdf").toFile();
+
+    // A4 at the scan resolution
+    int width = Math.round(8.27f * this.scanDpi);
+    int height = Math.round(11.69f * this.scanDpi);
+    Random random = new Random(42);
+
+    this.srcFiles = new ArrayList<>();
+    for (int i = 0; i < this.images; i++) {
+      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      Graphics2D graphics = image.createGraphics();
+      graphics.setPaint(new GradientPaint(0, 0, Color.WHITE, width, height, new Color(random.nextInt())));
+      graphics.fillRect(0, 0, width, height);
+      graphics.setColor(Color.DARK_GRAY);
+      for (int line = 0; line < 60; line++) {
+        graphics.fillRect(width / 10, height / 20 + line * height / 70, width / 3 + random.nextInt(width / 2),
+            height / 200);
+      }
+      graphics.dispose();
+
+      File srcFile = Files.createTempFile("image", ".jpg").toFile();
+      ImageIO.write(image, "jpg", srcFile);
+      this.srcFiles.add(srcFile);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.converter.shutdown();
+    this.srcFiles.forEach(File::delete);
+    this.dstFile.delete();
+  }
+
+  @Benchmark
+  public long convert() throws IOException, DocumentException {
+    this.converter.convert(this.srcFiles, this.dstFile);
+    return this.dstFile.length();
+  }
+}
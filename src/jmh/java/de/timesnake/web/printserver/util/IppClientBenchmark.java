@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the IPP submission path against {@link IppStubServer}, no CUPS installation needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IppClientBenchmark {
+
+  @Param({"10240", "10485760"})
+  public int documentSize;
+
+  private IppStubServer server;
+  private IppClient client;
+  private Path document;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.server = new IppStubServer(0, 1000);
+    this.server.start();
+    this.client = new IppClient(this.server.getUri(), Duration.ofSeconds(30));
+
+    this.document = Files.createTempFile("document", ".pdf");
+    Files.write(this.document, new byte[this.documentSize]);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    this.server.stop();
+    Files.deleteIfExists(this.document);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public int printJob() throws IOException {
+    IppMessage request = this.client.createRequest(IppMessage.PRINT_JOB);
+    request.getGroup(IppMessage.OPERATION_ATTRIBUTES)
+        .add(IppMessage.URI, "printer-uri", this.client.getPrinterUri("stub"))
+        .add(IppMessage.NAME, "requesting-user-name", "benchmark")
+        .add(IppMessage.MIME_MEDIA_TYPE, "document-format", "application/pdf");
+    request.group(IppMessage.JOB_ATTRIBUTES)
+        .add(IppMessage.INTEGER, "copies", 1)
+        .add(IppMessage.KEYWORD, "sides", "two-sided-long-edge")
+        .add(IppMessage.ENUM, "orientation-requested", 3)
+        .add(IppMessage.INTEGER, "number-up", 2)
+        .add(IppMessage.RANGE_OF_INTEGER, "page-ranges", List.of(new int[]{1, 4}, new int[]{9, 12}).toArray());
+
+    IppMessage response = this.client.send("/printers/stub", request, this.document);
+    return response.getGroup(IppMessage.JOB_ATTRIBUTES).getInt("job-id");
+  }
+}
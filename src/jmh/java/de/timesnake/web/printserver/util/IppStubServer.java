@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for a CUPS server speaking just enough IPP to accept, cancel and report jobs. Jobs count as
+ * completed once the configured delay has passed. Run {@link #main(String[])} to point a development instance at
+ * it via {@code cupsServerUrl}.
+ */
+public class IppStubServer {
+
+  public static final int JOB_PENDING = 3;
+  public static final int JOB_PROCESSING = 5;
+  public static final int JOB_CANCELED = 7;
+  public static final int JOB_COMPLETED = 9;
+
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 8631;
+    long completionDelay = args.length > 1 ? Long.parseLong(args[1]) : 5000;
+    IppStubServer server = new IppStubServer(port, completionDelay);
+    server.start();
+    System.out.println("IPP stub server listening on " + server.getUri());
+  }
+
+  private final HttpServer server;
+  private final long completionDelay;
+
+  private final AtomicInteger jobIds = new AtomicInteger();
+  private final Map<Integer, Job> jobs = new ConcurrentHashMap<>();
+  private final AtomicLong receivedBytes = new AtomicLong();
+
+  public IppStubServer(int port, long completionDelay) throws IOException {
+    this.completionDelay = completionDelay;
+    this.server = HttpServer.create(new InetSocketAddress("localhost", port), 128);
+    this.server.setExecutor(Executors.newCachedThreadPool());
+    this.server.createContext("/", this::handle);
+  }
+
+  public void start() {
+    this.server.start();
+  }
+
+  public void stop() {
+    this.server.stop(0);
+  }
+
+  public URI getUri() {
+    return URI.create("http://localhost:" + this.server.getAddress().getPort());
+  }
+
+  public int getSubmittedJobs() {
+    return this.jobIds.get();
+  }
+
+  public long getReceivedBytes() {
+    return this.receivedBytes.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    IppMessage request;
+    try (InputStream in = exchange.getRequestBody()) {
+      request = IppMessage.decode(in);
+      this.receivedBytes.addAndGet(in.transferTo(OutputStream.nullOutputStream()));
+    }
+
+    IppMessage response = switch (request.getCode()) {
+      case IppMessage.PRINT_JOB -> this.printJob(request);
+      case IppMessage.CANCEL_JOB -> this.cancelJob(request);
+      case IppMessage.GET_JOB_ATTRIBUTES -> this.getJob(request);
+      case IppMessage.GET_JOBS -> this.getJobs(request);
+      default -> createResponse(request, IppMessage.SERVER_ERROR_OPERATION_NOT_SUPPORTED);
+    };
+
+    byte[] body = response.encode();
+    exchange.getResponseHeaders().set("Content-Type", "application/ipp");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private IppMessage printJob(IppMessage request) {
+    String printerUri = request.getGroup(IppMessage.OPERATION_ATTRIBUTES).getString("printer-uri");
+    Job job = new Job(this.jobIds.incrementAndGet(), System.currentTimeMillis());
+    this.jobs.put(job.id, job);
+
+    IppMessage response = createResponse(request, IppMessage.SUCCESSFUL_OK);
+    response.group(IppMessage.JOB_ATTRIBUTES)
+        .add(IppMessage.URI, "job-uri", printerUri + "/" + job.id)
+        .add(IppMessage.INTEGER, "job-id", job.id)
+        .add(IppMessage.ENUM, "job-state", job.getState());
+    return response;
+  }
+
+  private IppMessage cancelJob(IppMessage request) {
+    Job job = this.jobs.get(request.getGroup(IppMessage.OPERATION_ATTRIBUTES).getInt("job-id"));
+    if (job == null) {
+      return createResponse(request, IppMessage.CLIENT_ERROR_NOT_FOUND);
+    }
+    job.canceled = true;
+    return createResponse(request, IppMessage.SUCCESSFUL_OK);
+  }
+
+  private IppMessage getJob(IppMessage request) {
+    Job job = this.jobs.get(request.getGroup(IppMessage.OPERATION_ATTRIBUTES).getInt("job-id"));
+    if (job == null) {
+      return createResponse(request, IppMessage.CLIENT_ERROR_NOT_FOUND);
+    }
+
+    IppMessage response = createResponse(request, IppMessage.SUCCESSFUL_OK);
+    job.addTo(response);
+    return response;
+  }
+
+  private IppMessage getJobs(IppMessage request) {
+    IppMessage.Group operation = request.getGroup(IppMessage.OPERATION_ATTRIBUTES);
+    int firstJobId = Math.max(operation.getInt("first-job-id"), 0);
+    boolean notCompleted = "not-completed".equals(operation.getString("which-jobs"));
+
+    IppMessage response = createResponse(request, IppMessage.SUCCESSFUL_OK);
+    this.jobs.values().stream()
+        .filter(job -> job.id >= firstJobId)
+        .filter(job -> !notCompleted || job.getState() < JOB_CANCELED)
+        .sorted((a, b) -> Integer.compare(a.id, b.id))
+        .forEach(job -> job.addTo(response));
+    return response;
+  }
+
+  private static IppMessage createResponse(IppMessage request, int status) {
+    IppMessage response = new IppMessage(status, request.getRequestId());
+    response.group(IppMessage.OPERATION_ATTRIBUTES)
+        .add(IppMessage.CHARSET, "attributes-charset", "utf-8")
+        .add(IppMessage.NATURAL_LANGUAGE, "attributes-natural-language", "en");
+    return response;
+  }
+
+  private class Job {
+
+    private final int id;
+    private final long created;
+    private volatile boolean canceled;
+
+    private Job(int id, long created) {
+      this.id = id;
+      this.created = created;
+    }
+
+    private int getState() {
+      if (this.canceled) {
+        return JOB_CANCELED;
+      }
+      long age = System.currentTimeMillis() - this.created;
+      if (age >= completionDelay) {
+        return JOB_COMPLETED;
+      }
+      return age >= completionDelay / 2 ? JOB_PROCESSING : JOB_PENDING;
+    }
+
+    private void addTo(IppMessage response) {
+      response.group(IppMessage.JOB_ATTRIBUTES)
+          .add(IppMessage.INTEGER, "job-id", this.id)
+          .add(IppMessage.ENUM, "job-state", this.getState());
+    }
+  }
+}
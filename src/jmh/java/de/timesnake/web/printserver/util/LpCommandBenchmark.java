@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the {@code lp} command line for a mix of print settings, as done for every submitted job.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LpCommandBenchmark {
+
+  private static final int JOBS = 1000;
+  private static final String[] RANGES = {null, "1", "1-4", "2,4-9,12", "1-3,5,7-20,22,30-100"};
+
+  private final PrintRequest.PrintOrientation[] orientations = PrintRequest.PrintOrientation.values();
+  private final PrintRequest.PrintSides[] sides = PrintRequest.PrintSides.values();
+  private final PrintRequest.PrintPerPage[] perPages = PrintRequest.PrintPerPage.values();
+
+  private PrintRequest.PrintOrientation[] jobOrientation;
+  private PrintRequest.PrintSides[] jobSides;
+  private PrintRequest.PrintPerPage[] jobPerPage;
+  private PrintRequest.PageRange[] jobRange;
+  private int[] jobCopies;
+  private String[] jobName;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(42);
+    this.jobOrientation = new PrintRequest.PrintOrientation[JOBS];
+    this.jobSides = new PrintRequest.PrintSides[JOBS];
+    this.jobPerPage = new PrintRequest.PrintPerPage[JOBS];
+    this.jobRange = new PrintRequest.PageRange[JOBS];
+    this.jobCopies = new int[JOBS];
+    this.jobName = new String[JOBS];
+    for (int i = 0; i < JOBS; i++) {
+      this.jobOrientation[i] = this.orientations[random.nextInt(this.orientations.length)];
+      this.jobSides[i] = this.sides[random.nextInt(this.sides.length)];
+      this.jobPerPage[i] = this.perPages[random.nextInt(this.perPages.length)];
+      String range = RANGES[random.nextInt(RANGES.length)];
+      this.jobRange[i] = range != null ? PrintRequest.PageRange.fromString(range) : null;
+      this.jobCopies[i] = 1 + random.nextInt(5);
+      this.jobName[i] = random.nextInt(10) == 0 ? null : "handout week " + i + ".pdf";
+    }
+  }
+
+  @Benchmark
+  public void buildCmd(Blackhole blackhole) {
+    for (int i = 0; i < JOBS; i++) {
+      String options = this.jobOrientation[i].getCmd() + this.jobSides[i].getCmd() + this.jobPerPage[i].getCmd()
+          + (this.jobRange[i] != null ? this.jobRange[i].getCmd() : "");
+      blackhole.consume(LpPrintBackend.buildCmd("printer-" + (i % 3), this.jobCopies[i], this.jobName[i], options,
+          "/var/spool/print-server/documents/" + i + ".pdf"));
+    }
+  }
+}
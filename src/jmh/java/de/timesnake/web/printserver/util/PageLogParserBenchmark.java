@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a page_log held in memory line by line, without the file access measured by
+ * {@link PageLogTailerBenchmark}, compared with splitting each line into strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PageLogParserBenchmark {
+
+  private static final int JOBS = 1000;
+
+  @Param({"1000", "100000", "1000000"})
+  public int lines;
+
+  private byte[] log;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < this.lines; i++) {
+      int job = i % JOBS;
+      String page = i % 20 == 19 ? "total" : String.valueOf(i % 20 + 1);
+      String line = "printer-" + (job % 3) + "," + job + ",[18/Oct/2026:10:00:00 +0200]," + page
+          + ",1,handout, week " + job + ".pdf,two-sided-long-edge," + (i % 20) + "," + (i % 10) + "\n";
+      out.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+    }
+    this.log = out.toByteArray();
+  }
+
+  @Benchmark
+  public long parser() {
+    PageLogParser.Record record = new PageLogParser.Record();
+    long impressions = 0;
+    int start = 0;
+    for (int i = 0; i < this.log.length; i++) {
+      if (this.log[i] == '\n') {
+        if (PageLogParser.parse(this.log, start, i, record) && record.isPrinter("printer-1")) {
+          impressions += record.getImpressions();
+        }
+        start = i + 1;
+      }
+    }
+    return impressions;
+  }
+
+  @Benchmark
+  public long split() {
+    long impressions = 0;
+    int start = 0;
+    for (int i = 0; i < this.log.length; i++) {
+      if (this.log[i] == '\n') {
+        String[] values = new String(this.log, start, i - start, StandardCharsets.UTF_8).split(",");
+        if (values[0].equals("printer-1")) {
+          impressions += Integer.parseInt(values[values.length - 2]);
+        }
+        start = i + 1;
+      }
+    }
+    return impressions;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PageLogTailerBenchmark {
+
+  private static final int JOBS = 1000;
+
+  @Param({"100000", "1000000"})
+  public int lines;
+
+  @Param({"1", "50"})
+  public int subscribers;
+
+  private Path logFile;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.logFile = Files.createTempFile("page_log", ".log");
+    try (BufferedWriter writer = Files.newBufferedWriter(this.logFile)) {
+      for (int i = 0; i < this.lines; i++) {
+        int job = i % JOBS;
+        String page = i % 20 == 19 ? "total" : String.valueOf(i % 20 + 1);
+        writer.write("printer-" + (job % 3) + "," + job + ",[18/Oct/2026:10:00:00 +0200]," + page
+            + ",1,handout, week " + job + ".pdf,two-sided-long-edge," + (i % 20) + "," + (i % 10));
+        writer.newLine();
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.logFile);
+  }
+
+  @Benchmark
+  public void tailer(Blackhole blackhole) throws IOException {
+    PageLogTailer tailer = new PageLogTailer(this.logFile, 1000);
+    for (int i = 0; i < this.subscribers; i++) {
+      tailer.subscribe(i, record -> blackhole.consume(record.getImpressions()));
+    }
+    tailer.poll();
+  }
+
+  @Benchmark
+  public void fullScanPerSubscriber(Blackhole blackhole) throws IOException {
+    for (int i = 0; i < this.subscribers; i++) {
+      String cupsId = "printer-" + (i % 3) + "-" + i;
+      try (BufferedReader reader = Files.newBufferedReader(this.logFile)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] values = line.split(",");
+          if (cupsId.equals(values[0] + "-" + values[1])) {
+            blackhole.consume(Integer.parseInt(values[values.length - 2]));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PageRangeBenchmark {
+
+  @Param({"simple", "huge", "singles", "overlapping", "descending"})
+  public String input;
+
+  private String range;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    StringBuilder sb = new StringBuilder();
+    switch (this.input) {
+      case "simple" -> sb.append("1,4-9,12");
+      case "huge" -> sb.append("1-100000000");
+      case "singles" -> {
+        for (int i = 1; i < 10000; i += 2) {
+          sb.append(i).append(',');
+        }
+        sb.setLength(sb.length() - 1);
+      }
+      case "overlapping" -> {
+        for (int i = 0; i < 1000; i++) {
+          sb.append(i * 500 + 1).append('-').append(i * 500 + 1000).append(',');
+        }
+        sb.setLength(sb.length() - 1);
+      }
+      case "descending" -> {
+        for (int i = 5000; i > 0; i--) {
+          sb.append(i).append(',');
+        }
+        sb.setLength(sb.length() - 1);
+      }
+      default -> throw new IllegalArgumentException(this.input);
+    }
+    this.range = sb.toString();
+  }
+
+  @Benchmark
+  public PrintRequest.PageRange parse() {
+    return PrintRequest.PageRange.fromString(this.range);
+  }
+
+  @Benchmark
+  public int parseAndCount() {
+    return PrintRequest.PageRange.fromString(this.range).getPageCount(500);
+  }
+
+  @Benchmark
+  public void parseAndIterate(Blackhole blackhole) {
+    PrintRequest.PageRange pageRange = PrintRequest.PageRange.fromString(this.range).intersect(500);
+    if (pageRange != null) {
+      pageRange.forEach(blackhole::consume);
+    }
+  }
+
+  /**
+   * The previous implementation, expanding every range into boxed page numbers. Skipped for the huge input, which
+   * takes seconds and gigabytes of heap.
+   */
+  @Benchmark
+  public int legacyExpand() {
+    if (this.input.equals("huge")) {
+      return 0;
+    }
+
+    List<Integer> pages = new LinkedList<>();
+    for (String part : this.range.replace(" ", "").split(",")) {
+      String[] bounds = part.split("-", 2);
+      int lowerBound = Integer.parseInt(bounds[0]);
+      int upperBound = bounds.length == 2 ? Integer.parseInt(bounds[1]) : lowerBound;
+      IntStream.rangeClosed(lowerBound, upperBound).forEach(pages::add);
+    }
+    return pages.size();
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PdfImposerBenchmark {
+
+  @Param({"500", "2000"})
+  public int pages;
+
+  private File srcFile;
+  private File dstFile;
+
+  private int[] twoPages;
+  private int[] allPages;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.srcFile = Files.createTempFile("imposer", ".pdf").toFile();
+    this.dstFile = Files.createTempFile("imposer", ".out.pdf").toFile();
+
+    try (PDDocument document = new PDDocument()) {
+      for (int i = 0; i < this.pages; i++) {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+          // lines of "text" as thin bars, enough content to make copying the page streams count
+          for (int line = 0; line < 50; line++) {
+            content.addRect(72, 770 - line * 14, 200 + (i * 7 + line * 13) % 250, 8);
+          }
+          content.fill();
+        }
+      }
+      document.save(this.srcFile);
+    }
+
+    this.twoPages = new int[]{this.pages / 2, this.pages / 2 + 1};
+    this.allPages = IntStream.rangeClosed(1, this.pages).toArray();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.srcFile.delete();
+    this.dstFile.delete();
+  }
+
+  @Benchmark
+  public int extractTwoPages() throws IOException {
+    return PdfImposer.impose(this.srcFile, this.twoPages, 1, false, this.dstFile);
+  }
+
+  @Benchmark
+  public int extractAllPages() throws IOException {
+    return PdfImposer.impose(this.srcFile, this.allPages, 1, false, this.dstFile);
+  }
+
+  @Benchmark
+  public int fourUpAllPages() throws IOException {
+    return PdfImposer.impose(this.srcFile, this.allPages, 4, false, this.dstFile);
+  }
+
+  @Benchmark
+  public Path sendWholeDocument() throws IOException {
+    // baseline: bytes handed to CUPS without server side selection
+    return Files.copy(this.srcFile.toPath(), this.dstFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+}
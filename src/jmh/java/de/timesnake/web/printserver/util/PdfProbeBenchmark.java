@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads page count and page sizes of an uploaded pdf, as done for every new document before it can be priced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PdfProbeBenchmark {
+
+  @Param({"1", "5000"})
+  public int pages;
+
+  private PdfService pdfService;
+  private File file;
+  private String hash;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.pdfService = new PdfService(new Config(), new SimpleMeterRegistry());
+    this.file = Files.createTempFile("probe", ".pdf").toFile();
+
+    try (PDDocument document = new PDDocument()) {
+      for (int i = 0; i < this.pages; i++) {
+        PDPage page = new PDPage(i % 10 == 9 ? PDRectangle.A3 : PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+          for (int line = 0; line < 50; line++) {
+            content.addRect(72, 770 - line * 14, 200 + (i * 7 + line * 13) % 250, 8);
+          }
+          content.fill();
+        }
+      }
+      document.save(this.file);
+    }
+
+    this.hash = PdfService.hash(this.file);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.pdfService.shutdown();
+    this.file.delete();
+  }
+
+  @Benchmark
+  public int pageCount() throws IOException {
+    try (PDDocument document = Loader.loadPDF(this.file)) {
+      return document.getNumberOfPages();
+    }
+  }
+
+  @Benchmark
+  public DocumentMetadata probe() throws IOException {
+    return this.pdfService.probe(this.file, this.hash);
+  }
+
+  @Benchmark
+  public DocumentMetadata probeAndHash() throws IOException {
+    return this.pdfService.probe(this.file);
+  }
+}
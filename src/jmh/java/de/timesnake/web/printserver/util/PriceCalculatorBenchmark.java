@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Prices a batch of jobs, as a bulk recalculation does, with the compiled calculator and with the previous boxed
+ * implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PriceCalculatorBenchmark {
+
+  private static final int JOBS = 10000;
+
+  private static final Function<Integer, Integer> LEGACY_ONE_SIDED = n -> n;
+  private static final Function<Integer, Integer> LEGACY_TWO_SIDED = n -> (n + 1) / 2;
+  private static final Function<Integer, Integer>[] LEGACY_PER_PAGE = legacyPerPage();
+
+  @SuppressWarnings("unchecked")
+  private static Function<Integer, Integer>[] legacyPerPage() {
+    return new Function[]{(Function<Integer, Integer>) n -> n, (Function<Integer, Integer>) n -> (n + 1) / 2,
+        (Function<Integer, Integer>) n -> (n + 3) / 4, (Function<Integer, Integer>) n -> (n + 7) / 8,
+        (Function<Integer, Integer>) n -> (n + 15) / 16};
+  }
+
+  private final PrintRequest.PrintSides[] sides = PrintRequest.PrintSides.values();
+  private final PrintRequest.PrintPerPage[] perPages = PrintRequest.PrintPerPage.values();
+
+  private int[] selectedPages;
+  private int[] sideIndex;
+  private int[] perPageIndex;
+  private int[] copies;
+
+  private PriceCalculator flat;
+  private PriceCalculator tiered;
+
+  private final Double legacyPriceOneSided = 0.05;
+  private final Double legacyPriceTwoSided = 0.08;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(42);
+    this.selectedPages = new int[JOBS];
+    this.sideIndex = new int[JOBS];
+    this.perPageIndex = new int[JOBS];
+    this.copies = new int[JOBS];
+    for (int i = 0; i < JOBS; i++) {
+      this.selectedPages[i] = 1 + random.nextInt(300);
+      this.sideIndex[i] = random.nextInt(this.sides.length);
+      this.perPageIndex[i] = random.nextInt(this.perPages.length);
+      this.copies[i] = 1 + random.nextInt(10);
+    }
+
+    this.flat = new PriceCalculator(500, 800, new int[]{0}, new int[]{100}, new int[]{100, 0});
+    this.tiered = new PriceCalculator(500, 800, new int[]{0, 100, 500, 2000}, new int[]{100, 90, 75, 60},
+        new int[]{100, 0});
+  }
+
+  @Benchmark
+  public long flat() {
+    return this.run(this.flat);
+  }
+
+  @Benchmark
+  public long tiered() {
+    return this.run(this.tiered);
+  }
+
+  private long run(PriceCalculator calculator) {
+    long total = 0;
+    for (int i = 0; i < JOBS; i++) {
+      PrintRequest.PrintSides side = this.sides[this.sideIndex[i]];
+      int printed = PriceCalculator.printedPages(this.selectedPages[i], side, this.perPages[this.perPageIndex[i]],
+          this.copies[i]);
+      total += calculator.price(printed, side, 100);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public double legacy() {
+    double total = 0;
+    for (int i = 0; i < JOBS; i++) {
+      boolean oneSided = this.sides[this.sideIndex[i]] == PrintRequest.PrintSides.ONE_SIDED;
+      Integer printed = (oneSided ? LEGACY_ONE_SIDED : LEGACY_TWO_SIDED).apply(this.selectedPages[i]);
+      printed = LEGACY_PER_PAGE[this.perPageIndex[i]].apply(printed);
+      printed = printed * this.copies[i];
+      Double price = printed * (oneSided ? this.legacyPriceOneSided : this.legacyPriceTwoSided);
+      total += price;
+    }
+    return total;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Drives 500 simulated jobs through submission, printing and completion. The legacy variant mirrors the former
+ * fixed pool where every job held a thread for its whole lifetime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrintExecutorBenchmark {
+
+  private static final long SUBMIT_MILLIS = 20;
+  private static final long PRINT_MILLIS = 200;
+  private static final long COMPLETE_MILLIS = 5;
+
+  @Param({"500"})
+  public int jobs;
+
+  @Param({PrintExecutor.MODE_PLATFORM, PrintExecutor.MODE_VIRTUAL})
+  public String mode;
+
+  private PrintExecutor executor;
+  private ScheduledExecutorService printer;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.executor = new PrintExecutor(this.mode, 10, 5);
+    this.printer = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.executor.shutdown();
+    this.printer.shutdownNow();
+  }
+
+  @Benchmark
+  public void printExecutor() {
+    List<CompletableFuture<Integer>> futures = new ArrayList<>(this.jobs);
+    for (int i = 0; i < this.jobs; i++) {
+      int job = i;
+      futures.add(CompletableFuture.supplyAsync(() -> {
+            try {
+              return this.executor.submit(() -> {
+                sleep(SUBMIT_MILLIS);
+                return job;
+              });
+            } catch (Exception e) {
+              throw new CompletionException(e);
+            }
+          }, this.executor.getExecutorService())
+          .thenCompose(this::print)
+          .thenApplyAsync(id -> {
+            this.executor.complete(() -> sleep(COMPLETE_MILLIS));
+            return id;
+          }, this.executor.getExecutorService()));
+    }
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+  }
+
+  @Benchmark
+  public void legacyPool() throws Exception {
+    ExecutorService pool = new ThreadPoolExecutor(5, 100, 5L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    try {
+      List<Future<?>> futures = new ArrayList<>(this.jobs);
+      for (int i = 0; i < this.jobs; i++) {
+        futures.add(pool.submit(() -> {
+          sleep(SUBMIT_MILLIS);
+          sleep(PRINT_MILLIS);
+          sleep(COMPLETE_MILLIS);
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private CompletableFuture<Integer> print(int job) {
+    CompletableFuture<Integer> future = new CompletableFuture<>();
+    this.printer.schedule(() -> future.complete(job), PRINT_MILLIS, TimeUnit.MILLISECONDS);
+    return future;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -9,18 +9,28 @@ import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.server.PWA;
 import com.vaadin.flow.shared.communication.PushMode;
 import com.vaadin.flow.theme.Theme;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import de.timesnake.web.printserver.data.Role;
 import de.timesnake.web.printserver.data.entity.User;
+import de.timesnake.web.printserver.data.service.UserBalanceService;
 import de.timesnake.web.printserver.data.service.UserRepository;
 import de.timesnake.web.printserver.security.SecurityConfiguration;
 import de.timesnake.web.printserver.util.Config;
+import de.timesnake.web.printserver.util.DatabasePoolMetrics;
+import de.timesnake.web.printserver.util.IppClient;
+import de.timesnake.web.printserver.util.IppPrintBackend;
+import de.timesnake.web.printserver.util.LpPrintBackend;
+import de.timesnake.web.printserver.util.PrintBackend;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -39,13 +49,43 @@ public class Application implements AppShellConfigurator {
   }
 
   @Bean
-  public DataSource datasource(Config config) {
-    final DriverManagerDataSource dataSource = new DriverManagerDataSource();
-    dataSource.setDriverClassName("org.mariadb.jdbc.Driver");
-    dataSource.setUrl(config.getDatabaseUrl());
-    dataSource.setUsername(config.getDatabaseUser());
-    dataSource.setPassword(config.getDatabasePassword());
-    return dataSource;
+  public DatabasePoolMetrics databasePoolMetrics() {
+    return new DatabasePoolMetrics();
+  }
+
+  @Bean(destroyMethod = "close")
+  public DataSource datasource(Config config, DatabasePoolMetrics metrics) {
+    HikariConfig hikari = new HikariConfig();
+    hikari.setPoolName("print-server-db");
+    hikari.setDriverClassName("org.mariadb.jdbc.Driver");
+    hikari.setJdbcUrl(config.getDatabaseUrl());
+    hikari.setUsername(config.getDatabaseUser());
+    hikari.setPassword(config.getDatabasePassword());
+
+    hikari.setMaximumPoolSize(config.getDatabasePoolSize());
+    hikari.setMinimumIdle(Math.min(config.getDatabaseMinIdle(), config.getDatabasePoolSize()));
+    hikari.setConnectionTimeout(config.getDatabaseConnectionTimeout());
+    hikari.setIdleTimeout(config.getDatabaseIdleTimeout());
+    hikari.setMaxLifetime(config.getDatabaseMaxLifetime());
+    hikari.setLeakDetectionThreshold(config.getDatabaseLeakDetectionThreshold());
+
+    hikari.addDataSourceProperty("useServerPrepStmts", "true");
+    hikari.addDataSourceProperty("cachePrepStmts", "true");
+    hikari.addDataSourceProperty("prepStmtCacheSize", String.valueOf(config.getDatabasePrepStmtCacheSize()));
+    hikari.addDataSourceProperty("useBulkStmts", "true");
+
+    hikari.setMetricsTrackerFactory(metrics);
+    hikari.setRegisterMbeans(true);
+    return new HikariDataSource(hikari);
+  }
+
+  @Bean
+  public PrintBackend printBackend(Config config) {
+    if (config.getPrintBackend().equals("lp")) {
+      return new LpPrintBackend();
+    }
+    return new IppPrintBackend(new IppClient(URI.create(config.getCupsServerUrl()),
+        Duration.ofSeconds(config.getCupsRequestTimeout())));
   }
 
   @Bean
@@ -61,5 +101,17 @@ public class Application implements AppShellConfigurator {
       }
     };
   }
-}
 
+  @Bean
+  public CommandLineRunner balanceCommands(UserBalanceService balanceService) {
+    return (args) -> {
+      List<String> arguments = List.of(args);
+      if (arguments.contains("--rebuild-balances")) {
+        balanceService.rebuild();
+      }
+      if (arguments.contains("--verify-balances")) {
+        balanceService.verify();
+      }
+    };
+  }
+}
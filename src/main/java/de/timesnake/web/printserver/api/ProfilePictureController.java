@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.api;
+
+import de.timesnake.web.printserver.util.ProfilePictureService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+/**
+ * Serves profile pictures. Links carry the etag of the picture, so responses can be cached for a long time.
+ */
+@RestController
+@RequestMapping("/api/users")
+public class ProfilePictureController {
+
+  public static String getUrl(Long userId, String etag) {
+    return "api/users/" + userId + "/picture?v=" + etag;
+  }
+
+  private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate()
+      .immutable();
+
+  private final ProfilePictureService profilePictureService;
+
+  public ProfilePictureController(ProfilePictureService profilePictureService) {
+    this.profilePictureService = profilePictureService;
+  }
+
+  @GetMapping("/{userId}/picture")
+  public ResponseEntity<byte[]> getPicture(@PathVariable Long userId,
+                                           @RequestParam(name = "full", defaultValue = "false") boolean full,
+                                           @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false)
+                                           String ifNoneMatch) {
+    ProfilePictureService.Picture picture = full ? this.profilePictureService.getImage(userId)
+        : this.profilePictureService.getThumbnail(userId);
+    if (picture == null) {
+      return ResponseEntity.notFound().build();
+    }
+
+    String etag = "\"" + picture.etag() + (full ? "" : "-t") + "\"";
+    if (etag.equals(ifNoneMatch)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+    }
+
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(CACHE_CONTROL)
+        .contentType(MediaType.parseMediaType(picture.contentType()))
+        .body(picture.data());
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+
+/**
+ * Amount of money in cents. Stored as {@code BIGINT} so sums are exact and can be computed by the database.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+  public static final Money ZERO = new Money(0);
+
+  public static Money ofCents(long cents) {
+    return cents == 0 ? ZERO : new Money(cents);
+  }
+
+  /**
+   * @param amount in euros, rounded half up to cents
+   */
+  public static Money of(BigDecimal amount) {
+    return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+  }
+
+  private final long cents;
+
+  private Money(long cents) {
+    this.cents = cents;
+  }
+
+  public long getCents() {
+    return cents;
+  }
+
+  public Money plus(Money other) {
+    return ofCents(Math.addExact(this.cents, other.cents));
+  }
+
+  public Money times(long factor) {
+    return ofCents(Math.multiplyExact(this.cents, factor));
+  }
+
+  public boolean isZero() {
+    return this.cents == 0;
+  }
+
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(this.cents, 2);
+  }
+
+  /**
+   * @return the amount with two decimals in the format of the default locale, without currency
+   */
+  public String format() {
+    return new DecimalFormat("0.00").format(this.toBigDecimal());
+  }
+
+  @Override
+  public int compareTo(Money o) {
+    return Long.compare(this.cents, o.cents);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return cents == ((Money) o).cents;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(cents);
+  }
+
+  @Override
+  public String toString() {
+    return this.toBigDecimal().toPlainString();
+  }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps {@link Money} to a {@code BIGINT} column of cents.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+  @Override
+  public Long convertToDatabaseColumn(Money money) {
+    return money != null ? money.getCents() : null;
+  }
+
+  @Override
+  public Money convertToEntityAttribute(Long cents) {
+    return cents != null ? Money.ofCents(cents) : null;
+  }
+}
@@ -1,5 +1,7 @@
 package de.timesnake.web.printserver.data.entity;
 
+import de.timesnake.web.printserver.data.Money;
+import de.timesnake.web.printserver.data.MoneyConverter;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
@@ -24,7 +26,8 @@ public class PrintJob {
   private Integer printedPages;
 
   @Column(name = "costs", nullable = false)
-  private Double costs;
+  @Convert(converter = MoneyConverter.class)
+  private Money costs;
 
   @ManyToOne(optional = false)
   @JoinColumn(name = "printer_id", nullable = false)
@@ -40,6 +43,28 @@ public class PrintJob {
   @Column(name = "timestamp", nullable = false)
   private LocalDateTime timestamp;
 
+  @Column(name = "document_hash", length = 64)
+  private String documentHash;
+
+  // milliseconds from the start of the upload, null if the phase was skipped
+  @Column(name = "uploaded_ms")
+  private Integer uploadedMs;
+
+  @Column(name = "converted_ms")
+  private Integer convertedMs;
+
+  @Column(name = "probed_ms")
+  private Integer probedMs;
+
+  @Column(name = "submitted_ms")
+  private Integer submittedMs;
+
+  @Column(name = "first_page_ms")
+  private Integer firstPageMs;
+
+  @Column(name = "completed_ms")
+  private Integer completedMs;
+
   public LocalDateTime getTimestamp() {
     return timestamp;
   }
@@ -72,11 +97,11 @@ public class PrintJob {
     this.fileName = fileName;
   }
 
-  public Double getCosts() {
+  public Money getCosts() {
     return costs;
   }
 
-  public void setCosts(Double costs) {
+  public void setCosts(Money costs) {
     this.costs = costs;
   }
 
@@ -112,6 +137,62 @@ public class PrintJob {
     this.documentPages = documentPages;
   }
 
+  public String getDocumentHash() {
+    return documentHash;
+  }
+
+  public void setDocumentHash(String documentHash) {
+    this.documentHash = documentHash;
+  }
+
+  public Integer getUploadedMs() {
+    return uploadedMs;
+  }
+
+  public void setUploadedMs(Integer uploadedMs) {
+    this.uploadedMs = uploadedMs;
+  }
+
+  public Integer getConvertedMs() {
+    return convertedMs;
+  }
+
+  public void setConvertedMs(Integer convertedMs) {
+    this.convertedMs = convertedMs;
+  }
+
+  public Integer getProbedMs() {
+    return probedMs;
+  }
+
+  public void setProbedMs(Integer probedMs) {
+    this.probedMs = probedMs;
+  }
+
+  public Integer getSubmittedMs() {
+    return submittedMs;
+  }
+
+  public void setSubmittedMs(Integer submittedMs) {
+    this.submittedMs = submittedMs;
+  }
+
+  public Integer getFirstPageMs() {
+    return firstPageMs;
+  }
+
+  public void setFirstPageMs(Integer firstPageMs) {
+    this.firstPageMs = firstPageMs;
+  }
+
+  public Integer getCompletedMs() {
+    return completedMs;
+  }
+
+  public void setCompletedMs(Integer completedMs) {
+    this.completedMs = completedMs;
+  }
+
   public Long getId() {
     return id;
   }
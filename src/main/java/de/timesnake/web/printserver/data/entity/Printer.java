@@ -2,6 +2,8 @@ package de.timesnake.web.printserver.data.entity;
 
 import jakarta.persistence.*;
 
+import java.math.BigDecimal;
+
 @Entity(name = "printer")
 public class Printer {
 
@@ -19,11 +21,11 @@ public class Printer {
   @Column(name = "cups_name", nullable = false)
   private String cupsName;
 
-  @Column(name = "price_one_sided", nullable = false)
-  private Double priceOneSided;
+  @Column(name = "price_one_sided", nullable = false, precision = 12, scale = 4)
+  private BigDecimal priceOneSided;
 
-  @Column(name = "price_two_sided", nullable = false)
-  private Double priceTwoSided;
+  @Column(name = "price_two_sided", nullable = false, precision = 12, scale = 4)
+  private BigDecimal priceTwoSided;
 
   public Integer getPriority() {
     return priority;
@@ -33,19 +35,19 @@ public class Printer {
     this.priority = priority;
   }
 
-  public Double getPriceTwoSided() {
+  public BigDecimal getPriceTwoSided() {
     return priceTwoSided;
   }
 
-  public void setPriceTwoSided(Double priceTwoSided) {
+  public void setPriceTwoSided(BigDecimal priceTwoSided) {
     this.priceTwoSided = priceTwoSided;
   }
 
-  public Double getPriceOneSided() {
+  public BigDecimal getPriceOneSided() {
     return priceOneSided;
   }
 
-  public void setPriceOneSided(Double priceOneSided) {
+  public void setPriceOneSided(BigDecimal priceOneSided) {
     this.priceOneSided = priceOneSided;
   }
 
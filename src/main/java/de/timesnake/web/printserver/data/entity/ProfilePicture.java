@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "profile_picture")
+public class ProfilePicture {
+
+  @Id
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @Column(name = "content_type", nullable = false)
+  private String contentType;
+
+  @Lob
+  @Column(name = "image", nullable = false, length = 16777215)
+  private byte[] image;
+
+  @Lob
+  @Column(name = "thumbnail", length = 65535)
+  private byte[] thumbnail;
+
+  @Column(name = "etag", nullable = false)
+  private String etag;
+
+  @Column(name = "updated", nullable = false)
+  private LocalDateTime updated;
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public void setContentType(String contentType) {
+    this.contentType = contentType;
+  }
+
+  public byte[] getImage() {
+    return image;
+  }
+
+  public void setImage(byte[] image) {
+    this.image = image;
+  }
+
+  public byte[] getThumbnail() {
+    return thumbnail;
+  }
+
+  public void setThumbnail(byte[] thumbnail) {
+    this.thumbnail = thumbnail;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public void setEtag(String etag) {
+    this.etag = etag;
+  }
+
+  public LocalDateTime getUpdated() {
+    return updated;
+  }
+
+  public void setUpdated(LocalDateTime updated) {
+    this.updated = updated;
+  }
+}
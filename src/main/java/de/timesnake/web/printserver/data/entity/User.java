@@ -36,10 +36,6 @@ public class User {
   @ElementCollection(fetch = FetchType.EAGER)
   private Set<Role> roles;
 
-  @Lob
-  @Column(name = "profile_picture", length = 1000000)
-  private byte[] profilePicture;
-
   @OneToMany(mappedBy = "user", orphanRemoval = true)
   private Set<PrintJob> printJobs = new LinkedHashSet<>();
 
@@ -91,14 +87,6 @@ public class User {
     this.roles = roles;
   }
 
-  public byte[] getProfilePicture() {
-    return profilePicture != null ? profilePicture : new byte[]{};
-  }
-
-  public void setProfilePicture(byte[] profilePicture) {
-    this.profilePicture = profilePicture;
-  }
-
   @Override
   public final boolean equals(Object o) {
     if (this == o) return true;
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.entity;
+
+import de.timesnake.web.printserver.data.service.UserTotals;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of the print jobs of a user, maintained together with the jobs by
+ * {@link de.timesnake.web.printserver.data.service.UserBalanceService}.
+ */
+@Entity
+@Table(name = "user_balance")
+public class UserBalance implements UserTotals {
+
+  @Id
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @MapsId
+  @OneToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "user_id")
+  private User user;
+
+  @Column(name = "pages", nullable = false)
+  private Long pages;
+
+  @Column(name = "costs", nullable = false)
+  private Long costs;
+
+  @Column(name = "last_job")
+  private LocalDateTime lastJob;
+
+  @Override
+  public Long getUserId() {
+    return userId;
+  }
+
+  public User getUser() {
+    return user;
+  }
+
+  @Override
+  public Long getPages() {
+    return pages;
+  }
+
+  @Override
+  public Long getCosts() {
+    return costs;
+  }
+
+  public LocalDateTime getLastJob() {
+    return lastJob;
+  }
+}
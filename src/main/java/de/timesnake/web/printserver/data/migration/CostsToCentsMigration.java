@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.migration;
+
+import de.timesnake.web.printserver.Application;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.*;
+
+/**
+ * Fills a new cents column from a {@code DOUBLE} column of euros in id batches, committing after each batch so
+ * large tables are not locked in one transaction. Rows already converted are skipped, so an interrupted run can
+ * simply be repeated. Every row is verified afterwards and the change fails if any of them does not match.
+ */
+public class CostsToCentsMigration implements CustomTaskChange {
+
+  private String tableName;
+  private String sourceColumn;
+  private String targetColumn;
+  private int batchSize = 10000;
+
+  private int converted;
+
+  public void setTableName(String tableName) {
+    this.tableName = tableName;
+  }
+
+  public void setSourceColumn(String sourceColumn) {
+    this.sourceColumn = sourceColumn;
+  }
+
+  public void setTargetColumn(String targetColumn) {
+    this.targetColumn = targetColumn;
+  }
+
+  public void setBatchSize(String batchSize) {
+    this.batchSize = Integer.parseInt(batchSize);
+  }
+
+  @Override
+  public void execute(Database database) throws CustomChangeException {
+    Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+
+    try {
+      long minId;
+      long maxId;
+      try (Statement statement = connection.createStatement();
+           ResultSet result = statement.executeQuery("SELECT MIN(id), MAX(id) FROM " + this.tableName)) {
+        result.next();
+        minId = result.getLong(1);
+        maxId = result.getLong(2);
+        if (result.wasNull()) {
+          return;
+        }
+      }
+
+      try (PreparedStatement update = connection.prepareStatement("UPDATE " + this.tableName + " SET "
+          + this.targetColumn + " = ROUND(" + this.sourceColumn + " * 100) WHERE id BETWEEN ? AND ? AND "
+          + this.targetColumn + " IS NULL")) {
+        for (long from = minId; from <= maxId; from += this.batchSize) {
+          update.setLong(1, from);
+          update.setLong(2, from + this.batchSize - 1);
+          this.converted += update.executeUpdate();
+          connection.commit();
+        }
+      }
+
+      this.verify(connection);
+    } catch (SQLException e) {
+      throw new CustomChangeException("Failed to convert " + this.tableName + "." + this.sourceColumn + " to cents",
+          e);
+    }
+  }
+
+  private void verify(Connection connection) throws SQLException, CustomChangeException {
+    try (Statement statement = connection.createStatement();
+         ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + this.tableName + " WHERE "
+             + this.targetColumn + " IS NULL OR " + this.targetColumn + " <> ROUND(" + this.sourceColumn
+             + " * 100)")) {
+      result.next();
+      long mismatches = result.getLong(1);
+      if (mismatches > 0) {
+        throw new CustomChangeException(mismatches + " rows of " + this.tableName + " were not converted to cents");
+      }
+    }
+
+    try (Statement statement = connection.createStatement();
+         ResultSet result = statement.executeQuery("SELECT CAST(SUM(" + this.targetColumn + ") AS SIGNED), SUM("
+             + this.sourceColumn + ") FROM " + this.tableName)) {
+      result.next();
+      Application.getLogger().info("Converted " + this.converted + " rows of " + this.tableName + " to cents, "
+          + "total " + result.getLong(1) + " cents, previously " + result.getDouble(2));
+    }
+  }
+
+  @Override
+  public String getConfirmationMessage() {
+    return "Converted " + this.converted + " rows of " + this.tableName + "." + this.sourceColumn + " to cents";
+  }
+
+  @Override
+  public void setUp() {
+
+  }
+
+  @Override
+  public void setFileOpener(ResourceAccessor resourceAccessor) {
+
+  }
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    ValidationErrors errors = new ValidationErrors();
+    errors.checkRequiredField("tableName", this.tableName);
+    errors.checkRequiredField("sourceColumn", this.sourceColumn);
+    errors.checkRequiredField("targetColumn", this.targetColumn);
+    return errors;
+  }
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+import de.timesnake.web.printserver.data.entity.PrintJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position in the print job history ordered by (timestamp, id), used to seek to the next page instead of skipping
+ * rows with an offset.
+ */
+public record PrintJobCursor(LocalDateTime timestamp, Long id) {
+
+  public static PrintJobCursor of(PrintJob job) {
+    return new PrintJobCursor(job.getTimestamp(), job.getId());
+  }
+}
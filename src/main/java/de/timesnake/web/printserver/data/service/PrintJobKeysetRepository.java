@@ -0,0 +1,22 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+import de.timesnake.web.printserver.data.entity.PrintJob;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface PrintJobKeysetRepository {
+
+  /**
+   * Loads up to {@code limit} jobs matching the specification that follow the cursor in (timestamp, id) order.
+   *
+   * @param cursor     last job of the previous page, {@code null} for the first page
+   * @param descending newest first if {@code true}
+   */
+  List<PrintJob> findPage(Specification<PrintJob> specification, PrintJobCursor cursor, boolean descending,
+                          int limit);
+}
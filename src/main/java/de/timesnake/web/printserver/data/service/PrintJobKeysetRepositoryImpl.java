@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+import de.timesnake.web.printserver.data.entity.PrintJob;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class PrintJobKeysetRepositoryImpl implements PrintJobKeysetRepository {
+
+  private final EntityManager entityManager;
+
+  PrintJobKeysetRepositoryImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public List<PrintJob> findPage(Specification<PrintJob> specification, PrintJobCursor cursor, boolean descending,
+                                 int limit) {
+    CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+    CriteriaQuery<PrintJob> query = cb.createQuery(PrintJob.class);
+    Root<PrintJob> root = query.from(PrintJob.class);
+
+    Path<LocalDateTime> timestamp = root.get("timestamp");
+    Path<Long> id = root.get("id");
+
+    Predicate predicate = specification != null ? specification.toPredicate(root, query, cb) : null;
+    if (cursor != null) {
+      Predicate seek = descending
+          ? cb.or(cb.lessThan(timestamp, cursor.timestamp()),
+          cb.and(cb.equal(timestamp, cursor.timestamp()), cb.lessThan(id, cursor.id())))
+          : cb.or(cb.greaterThan(timestamp, cursor.timestamp()),
+          cb.and(cb.equal(timestamp, cursor.timestamp()), cb.greaterThan(id, cursor.id())));
+      predicate = predicate != null ? cb.and(predicate, seek) : seek;
+    }
+    if (predicate != null) {
+      query.where(predicate);
+    }
+
+    query.orderBy(descending ? List.of(cb.desc(timestamp), cb.desc(id)) : List.of(cb.asc(timestamp), cb.asc(id)));
+
+    EntityGraph<PrintJob> graph = this.entityManager.createEntityGraph(PrintJob.class);
+    graph.addAttributeNodes("printer", "user");
+
+    return this.entityManager.createQuery(query)
+        .setHint("jakarta.persistence.fetchgraph", graph)
+        .setMaxResults(limit)
+        .getResultList();
+  }
+}
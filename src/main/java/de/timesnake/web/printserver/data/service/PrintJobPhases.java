@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+/**
+ * Phase timestamps of a print job in milliseconds from the start of the upload, {@code null} for skipped phases.
+ */
+public interface PrintJobPhases {
+
+  String getPrinterName();
+
+  Integer getUploadedMs();
+
+  Integer getConvertedMs();
+
+  Integer getProbedMs();
+
+  Integer getSubmittedMs();
+
+  Integer getFirstPageMs();
+
+  Integer getCompletedMs();
+}
@@ -1,17 +1,35 @@
 package de.timesnake.web.printserver.data.service;
 
-import com.vaadin.flow.component.page.Page;
 import de.timesnake.web.printserver.data.entity.PrintJob;
-import de.timesnake.web.printserver.data.entity.Printer;
 import de.timesnake.web.printserver.data.entity.User;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface PrintJobRepository extends JpaRepository<PrintJob, Long> {
+public interface PrintJobRepository extends JpaRepository<PrintJob, Long>, JpaSpecificationExecutor<PrintJob>,
+    PrintJobKeysetRepository {
   long deleteByUser(User user);
   List<PrintJob> findByUser(User user);
 
-  List<PrintJob> getPrintJobsByPrinter(Pageable pageable, Printer printer);
-}
\ No newline at end of file
+  @Override
+  @EntityGraph(attributePaths = {"printer", "user"})
+  Page<PrintJob> findAll(Specification<PrintJob> spec, Pageable pageable);
+
+  @Query(value = "SELECT user_id AS userId, CAST(SUM(printed_pages) AS SIGNED) AS pages, CAST(SUM(costs) AS " +
+      "SIGNED) AS costs FROM print_job GROUP BY user_id", nativeQuery = true)
+  List<UserTotals> sumByUser();
+
+  @Query(value = "SELECT p.name AS printerName, j.uploaded_ms AS uploadedMs, j.converted_ms AS convertedMs, " +
+      "j.probed_ms AS probedMs, j.submitted_ms AS submittedMs, j.first_page_ms AS firstPageMs, " +
+      "j.completed_ms AS completedMs FROM print_job j JOIN printer p ON p.id = j.printer_id " +
+      "WHERE j.timestamp >= :since AND j.completed_ms IS NOT NULL", nativeQuery = true)
+  List<PrintJobPhases> findPhasesSince(@Param("since") LocalDateTime since);
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+import de.timesnake.web.printserver.data.entity.PrintJob;
+import de.timesnake.web.printserver.data.entity.Printer;
+import de.timesnake.web.printserver.data.entity.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class PrintJobSpecifications {
+
+  private PrintJobSpecifications() {
+
+  }
+
+  public static Specification<PrintJob> fileNameContains(String searchTerm) {
+    if (searchTerm == null || searchTerm.isBlank()) {
+      return Specification.where(null);
+    }
+    String pattern = "%" + searchTerm.toLowerCase().replace("\\", "\\\\").replace("%", "\\%")
+        .replace("_", "\\_") + "%";
+    return (root, query, cb) -> cb.like(cb.lower(root.get("fileName")), pattern, '\\');
+  }
+
+  public static Specification<PrintJob> byPrinter(Printer printer) {
+    return (root, query, cb) -> cb.equal(root.get("printer"), printer);
+  }
+
+  public static Specification<PrintJob> byUser(User user) {
+    return (root, query, cb) -> cb.equal(root.get("user"), user);
+  }
+
+  /**
+   * Applies the default order of the job grids, newest first, and breaks ties by id to keep pages stable.
+   */
+  public static Sort withDefaultOrder(Sort sort) {
+    if (sort.isUnsorted()) {
+      sort = Sort.by(Sort.Direction.DESC, "timestamp");
+    }
+    return sort.and(Sort.by(Sort.Direction.DESC, "id"));
+  }
+}
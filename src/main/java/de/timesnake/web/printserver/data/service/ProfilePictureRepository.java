@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+import de.timesnake.web.printserver.data.entity.ProfilePicture;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ProfilePictureRepository extends JpaRepository<ProfilePicture, Long> {
+
+  @Query("SELECT p.thumbnail AS thumbnail, p.etag AS etag FROM ProfilePicture p WHERE p.userId = :userId")
+  Optional<Thumbnail> findThumbnailByUserId(@Param("userId") Long userId);
+
+  interface Thumbnail {
+
+    byte[] getThumbnail();
+
+    String getEtag();
+  }
+}
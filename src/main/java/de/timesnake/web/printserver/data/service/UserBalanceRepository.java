@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+import de.timesnake.web.printserver.data.entity.UserBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface UserBalanceRepository extends JpaRepository<UserBalance, Long> {
+
+  @Modifying
+  @Query(value = "INSERT INTO user_balance (user_id, pages, costs, last_job) VALUES (:userId, :pages, :costs, " +
+      ":timestamp) ON DUPLICATE KEY UPDATE pages = pages + VALUES(pages), costs = costs + VALUES(costs), " +
+      "last_job = GREATEST(COALESCE(last_job, VALUES(last_job)), VALUES(last_job))", nativeQuery = true)
+  void add(@Param("userId") long userId, @Param("pages") long pages, @Param("costs") long costs,
+           @Param("timestamp") LocalDateTime timestamp);
+
+  @Modifying
+  @Query(value = "DELETE FROM user_balance WHERE user_id = :userId", nativeQuery = true)
+  void reset(@Param("userId") long userId);
+
+  @Modifying
+  @Query(value = "DELETE FROM user_balance", nativeQuery = true)
+  void resetAll();
+
+  @Modifying
+  @Query(value = "INSERT INTO user_balance (user_id, pages, costs, last_job) SELECT user_id, SUM(printed_pages), " +
+      "SUM(costs), MAX(timestamp) FROM print_job GROUP BY user_id", nativeQuery = true)
+  int rebuildAll();
+}
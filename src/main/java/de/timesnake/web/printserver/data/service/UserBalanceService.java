@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+import de.timesnake.web.printserver.Application;
+import de.timesnake.web.printserver.data.entity.PrintJob;
+import de.timesnake.web.printserver.data.entity.User;
+import de.timesnake.web.printserver.data.entity.UserBalance;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the {@code user_balance} ledger in step with {@code print_job}. Every change to the jobs of a user must
+ * go through this service so both tables are updated in one transaction.
+ */
+@Service
+public class UserBalanceService {
+
+  private final UserBalanceRepository balanceRepository;
+  private final PrintJobRepository printJobRepository;
+
+  public UserBalanceService(UserBalanceRepository balanceRepository, PrintJobRepository printJobRepository) {
+    this.balanceRepository = balanceRepository;
+    this.printJobRepository = printJobRepository;
+  }
+
+  @Transactional
+  public PrintJob saveJob(PrintJob job) {
+    PrintJob saved = this.printJobRepository.save(job);
+    this.balanceRepository.add(job.getUser().getId(), job.getPrintedPages(), job.getCosts().getCents(),
+        job.getTimestamp());
+    return saved;
+  }
+
+  @Transactional
+  public long deleteJobs(User user) {
+    long deleted = this.printJobRepository.deleteByUser(user);
+    this.balanceRepository.reset(user.getId());
+    return deleted;
+  }
+
+  public Optional<UserBalance> get(User user) {
+    return this.balanceRepository.findById(user.getId());
+  }
+
+  public Map<Long, UserBalance> get(Collection<Long> userIds) {
+    return this.balanceRepository.findAllById(userIds).stream()
+        .collect(Collectors.toMap(UserBalance::getUserId, Function.identity()));
+  }
+
+  public List<UserBalance> getAll() {
+    return this.balanceRepository.findAll();
+  }
+
+  /**
+   * Recomputes the whole ledger from {@code print_job}.
+   *
+   * @return number of users with a balance
+   */
+  @Transactional
+  public int rebuild() {
+    this.balanceRepository.resetAll();
+    int users = this.balanceRepository.rebuildAll();
+    Application.getLogger().info("Rebuilt balances of " + users + " users");
+    return users;
+  }
+
+  /**
+   * Compares the ledger with the totals computed from {@code print_job}.
+   *
+   * @return ids of users whose balance differs
+   */
+  @Transactional(readOnly = true)
+  public Set<Long> verify() {
+    Map<Long, UserBalance> balances = this.balanceRepository.findAll().stream()
+        .collect(Collectors.toMap(UserBalance::getUserId, Function.identity()));
+
+    Set<Long> mismatches = new TreeSet<>();
+    for (UserTotals totals : this.printJobRepository.sumByUser()) {
+      UserBalance balance = balances.remove(totals.getUserId());
+      if (balance == null || !balance.getPages().equals(totals.getPages())
+          || !balance.getCosts().equals(totals.getCosts())) {
+        mismatches.add(totals.getUserId());
+      }
+    }
+
+    balances.values().stream()
+        .filter(b -> b.getPages() != 0 || b.getCosts() != 0)
+        .forEach(b -> mismatches.add(b.getUserId()));
+
+    if (mismatches.isEmpty()) {
+      Application.getLogger().info("Verified user balances, no differences");
+    } else {
+      Application.getLogger().warning("Balances of users " + mismatches + " differ from their print jobs");
+    }
+    return mismatches;
+  }
+}
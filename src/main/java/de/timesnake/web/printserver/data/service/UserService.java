@@ -10,13 +10,25 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class UserService {
 
   private final UserRepository repository;
 
+  /**
+   * Version per user id, lets sessions detect that their cached user is outdated. Versions are unique across
+   * users. Entries are removed with the user, users without entry share the version of the last deletion, so
+   * sessions of deleted users notice as well, at the cost of reloading the other unchanged users once.
+   */
+  private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+  private final AtomicLong lastVersion = new AtomicLong();
+  private volatile long deletedVersion = 0;
+
   public UserService(UserRepository repository) {
     this.repository = repository;
   }
@@ -26,11 +38,30 @@ public class UserService {
   }
 
   public User update(User entity) {
-    return repository.save(entity);
+    User saved = repository.save(entity);
+    this.invalidate(saved.getId());
+    return saved;
   }
 
   public void delete(Long id) {
     repository.deleteById(id);
+    this.versions.remove(id);
+    this.deletedVersion = this.lastVersion.incrementAndGet();
+  }
+
+  public long getVersion(Long id) {
+    return this.versions.getOrDefault(id, this.deletedVersion);
+  }
+
+  /**
+   * @return the highest version handed out so far, every later change of any user gets a higher one
+   */
+  public long getLatestVersion() {
+    return this.lastVersion.get();
+  }
+
+  private void invalidate(Long id) {
+    this.versions.put(id, this.lastVersion.incrementAndGet());
   }
 
   public Page<User> list(Pageable pageable) {
@@ -0,0 +1,17 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.data.service;
+
+/**
+ * Printed pages and costs of all print jobs of a user. Costs are in cents.
+ */
+public interface UserTotals {
+
+  Long getUserId();
+
+  Long getPages();
+
+  Long getCosts();
+}
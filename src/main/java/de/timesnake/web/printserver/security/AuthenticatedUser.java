@@ -4,34 +4,91 @@
 
 package de.timesnake.web.printserver.security;
 
+import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.spring.security.AuthenticationContext;
 import de.timesnake.web.printserver.data.entity.User;
 import de.timesnake.web.printserver.data.service.UserRepository;
+import de.timesnake.web.printserver.data.service.UserService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
+/**
+ * Resolves the signed-in user. The user is cached in the Vaadin session and reloaded only after
+ * {@link UserService} changed or deleted it.
+ */
 @Component
 public class AuthenticatedUser {
 
+  private static final String SESSION_KEY = AuthenticatedUser.class.getName();
+
   private final UserRepository userRepository;
+  private final UserService userService;
   private final AuthenticationContext authenticationContext;
 
-  public AuthenticatedUser(AuthenticationContext authenticationContext, UserRepository userRepository) {
+  public AuthenticatedUser(AuthenticationContext authenticationContext, UserRepository userRepository,
+                           UserService userService) {
     this.userRepository = userRepository;
+    this.userService = userService;
     this.authenticationContext = authenticationContext;
   }
 
   @Transactional
   public Optional<User> get() {
     return authenticationContext.getAuthenticatedUser(UserDetails.class)
-        .map(userDetails -> userRepository.findByUsername(userDetails.getUsername()));
+        .map(userDetails -> this.resolve(userDetails.getUsername()));
+  }
+
+  private User resolve(String username) {
+    VaadinSession session = VaadinSession.getCurrent();
+    if (session == null) {
+      return userRepository.findByUsername(username);
+    }
+
+    CachedUser cached = (CachedUser) session.getAttribute(SESSION_KEY);
+    if (cached != null && cached.username().equals(username)) {
+      long version = this.userService.getVersion(cached.user().getId());
+      if (cached.version() == version) {
+        return cached.user();
+      }
+      return this.load(session, username, version);
+    }
+
+    return this.load(session, username, null);
+  }
+
+  /**
+   * @param version version of the user read before loading it, or {@code null} if its id is not known yet
+   */
+  private User load(VaadinSession session, String username, Long version) {
+    long latest = this.userService.getLatestVersion();
+    User user = userRepository.findByUsername(username);
+    if (user == null) {
+      session.setAttribute(SESSION_KEY, null);
+      return null;
+    }
+
+    if (version == null) {
+      long current = this.userService.getVersion(user.getId());
+      // changed while loading, the loaded user may be outdated and is reloaded on the next request
+      version = current <= latest ? current : -1;
+    }
+
+    session.setAttribute(SESSION_KEY, new CachedUser(username, user, version));
+    return user;
   }
 
   public void logout() {
+    VaadinSession session = VaadinSession.getCurrent();
+    if (session != null) {
+      session.setAttribute(SESSION_KEY, null);
+    }
     authenticationContext.logout();
   }
 
+  private record CachedUser(String username, User user, long version) {
+
+  }
 }
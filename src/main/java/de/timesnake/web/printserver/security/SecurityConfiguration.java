@@ -26,6 +26,8 @@ public class SecurityConfiguration extends VaadinWebSecurity {
   @Override
   protected void configure(HttpSecurity http) throws Exception {
     http.authorizeHttpRequests().requestMatchers(new AntPathRequestMatcher("/images/*.png")).permitAll();
+    http.authorizeHttpRequests().requestMatchers(new AntPathRequestMatcher("/actuator/health"),
+        new AntPathRequestMatcher("/actuator/prometheus")).permitAll();
     super.configure(http);
     setLoginView(http, LoginView.class);
   }
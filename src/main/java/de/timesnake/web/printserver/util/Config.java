@@ -36,6 +36,71 @@ public class Config {
     return this.properties.getProperty("database.url", "jdbc:mariadb://localhost:3306/print_server?createDatabaseIfNotExist=true");
   }
 
+  public int getDatabasePoolSize() {
+    return Integer.parseInt(this.properties.getProperty("database.poolSize", "10"));
+  }
+
+  public int getDatabaseMinIdle() {
+    return Integer.parseInt(this.properties.getProperty("database.minIdle", "2"));
+  }
+
+  public long getDatabaseConnectionTimeout() {
+    return Long.parseLong(this.properties.getProperty("database.connectionTimeout", "10000"));
+  }
+
+  public long getDatabaseIdleTimeout() {
+    return Long.parseLong(this.properties.getProperty("database.idleTimeout", "600000"));
+  }
+
+  public long getDatabaseMaxLifetime() {
+    return Long.parseLong(this.properties.getProperty("database.maxLifetime", "1800000"));
+  }
+
+  public long getDatabaseLeakDetectionThreshold() {
+    return Long.parseLong(this.properties.getProperty("database.leakDetectionThreshold", "0"));
+  }
+
+  public int getDatabasePrepStmtCacheSize() {
+    return Integer.parseInt(this.properties.getProperty("database.prepStmtCacheSize", "250"));
+  }
+
+  public int getProfilePictureMaxSize() {
+    return Integer.parseInt(this.properties.getProperty("profilePictureMaxSize", "1000000"));
+  }
+
+  public int getProfilePictureCacheSize() {
+    return Integer.parseInt(this.properties.getProperty("profilePictureCacheSize", "256"));
+  }
+
+  public String getSpoolDirectory() {
+    return this.properties.getProperty("spoolDirectory", "spool");
+  }
+
+  public int getSpoolQuotaInMB() {
+    return Integer.parseInt(this.properties.getProperty("spoolQuota", "2048"));
+  }
+
+  public int getMaxConcurrentUploads() {
+    return Integer.parseInt(this.properties.getProperty("maxConcurrentUploads", "20"));
+  }
+
+  public String getDocumentStoreDirectory() {
+    return this.properties.getProperty("documentStoreDirectory", "documents");
+  }
+
+  public int getDocumentStoreTtlInDays() {
+    return Integer.parseInt(this.properties.getProperty("documentStoreTtl", "30"));
+  }
+
+  public int getImageDpi() {
+    return Integer.parseInt(this.properties.getProperty("imageDpi", "300"));
+  }
+
+  public int getConversionThreads() {
+    return Integer.parseInt(this.properties.getProperty("conversionThreads",
+        String.valueOf(Runtime.getRuntime().availableProcessors())));
+  }
+
   public int getMaxFileSizeInMB() {
     return Integer.parseInt(this.properties.getProperty("maxFileSize", "100"));
   }
@@ -43,5 +108,77 @@ public class Config {
   public String getCupsLogFilePath() {
     return this.properties.getProperty("cupsLogFilePath", "/var/log/cups/page_log");
   }
-}
 
+  public long getCupsLogPollInterval() {
+    return Long.parseLong(this.properties.getProperty("cupsLogPollInterval", "250"));
+  }
+
+  public String getPrintBackend() {
+    return this.properties.getProperty("printBackend", "ipp");
+  }
+
+  public String getCupsServerUrl() {
+    return this.properties.getProperty("cupsServerUrl", "http://localhost:631");
+  }
+
+  public int getCupsRequestTimeout() {
+    return Integer.parseInt(this.properties.getProperty("cupsRequestTimeout", "30"));
+  }
+
+  public long getCupsJobPollInterval() {
+    return Long.parseLong(this.properties.getProperty("cupsJobPollInterval", "1000"));
+  }
+
+  public int getJobTimeoutBase(String printer) {
+    return Integer.parseInt(this.properties.getProperty("jobTimeoutBase." + printer,
+        this.properties.getProperty("jobTimeoutBase", "60")));
+  }
+
+  public int getJobTimeoutPerPage(String printer) {
+    return Integer.parseInt(this.properties.getProperty("jobTimeoutPerPage." + printer,
+        this.properties.getProperty("jobTimeoutPerPage", "10")));
+  }
+
+  public String getExecutionMode() {
+    return this.properties.getProperty("executionMode", PrintExecutor.MODE_PLATFORM);
+  }
+
+  public int getMaxConcurrentSubmissions() {
+    return Integer.parseInt(this.properties.getProperty("maxConcurrentSubmissions", "10"));
+  }
+
+  public int getMaxConcurrentCompletions() {
+    return Integer.parseInt(this.properties.getProperty("maxConcurrentCompletions", "5"));
+  }
+
+  public int getBatchTimeout() {
+    return Integer.parseInt(this.properties.getProperty("batchTimeout", "1800"));
+  }
+
+  public int getPrinterConcurrency(String printer) {
+    return Integer.parseInt(this.properties.getProperty("printerConcurrency." + printer,
+        this.properties.getProperty("printerConcurrency", "2")));
+  }
+
+  public int getPrinterQueueCapacity(String printer) {
+    return Integer.parseInt(this.properties.getProperty("printerQueueCapacity." + printer,
+        this.properties.getProperty("printerQueueCapacity", "20")));
+  }
+
+  /**
+   * @return volume tiers as {@code pages:percent,...} or {@code null}
+   */
+  public String getPriceTiers(String printer) {
+    return this.properties.getProperty("priceTiers." + printer, this.properties.getProperty("priceTiers"));
+  }
+
+  public int getPriceRolePercent(String role, String printer) {
+    return Integer.parseInt(this.properties.getProperty("priceRolePercent." + role + "." + printer,
+        this.properties.getProperty("priceRolePercent." + role, "100")));
+  }
+
+  public boolean isServerSideImposition(String printer) {
+    return Boolean.parseBoolean(this.properties.getProperty("serverSideImposition." + printer,
+        this.properties.getProperty("serverSideImposition", "false")));
+  }
+}
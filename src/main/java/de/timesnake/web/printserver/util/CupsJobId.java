@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import java.util.Objects;
+
+public final class CupsJobId {
+
+  public static CupsJobId parse(String s) {
+    if (s == null) {
+      return null;
+    }
+
+    int index = s.lastIndexOf('-');
+    if (index <= 0) {
+      return null;
+    }
+
+    try {
+      return new CupsJobId(s.substring(0, index), Integer.parseInt(s.substring(index + 1)));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private final String queue;
+  private final int id;
+
+  public CupsJobId(String queue, int id) {
+    this.queue = queue;
+    this.id = id;
+  }
+
+  public String getQueue() {
+    return queue;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    CupsJobId that = (CupsJobId) o;
+    return id == that.id && Objects.equals(queue, that.queue);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(queue, id);
+  }
+
+  @Override
+  public String toString() {
+    return this.queue + "-" + this.id;
+  }
+}
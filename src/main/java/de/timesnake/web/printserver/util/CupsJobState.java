@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+public enum CupsJobState {
+  PENDING(3, false),
+  HELD(4, false),
+  PROCESSING(5, false),
+  STOPPED(6, false),
+  CANCELED(7, true),
+  ABORTED(8, true),
+  COMPLETED(9, true);
+
+  public static CupsJobState fromIpp(int value) {
+    for (CupsJobState state : values()) {
+      if (state.ippValue == value) {
+        return state;
+      }
+    }
+    return null;
+  }
+
+  private final int ippValue;
+  private final boolean terminal;
+
+  CupsJobState(int ippValue, boolean terminal) {
+    this.ippValue = ippValue;
+    this.terminal = terminal;
+  }
+
+  public int getIppValue() {
+    return ippValue;
+  }
+
+  public boolean isTerminal() {
+    return terminal;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.*;
+
+@Service
+public class CupsJobTracker {
+
+  private final PrintBackend printBackend;
+  private final Config config;
+
+  private final Map<CupsJobId, TrackedJob> jobs = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService executor;
+
+  public CupsJobTracker(PrintBackend printBackend, Config config) {
+    this.printBackend = printBackend;
+    this.config = config;
+  }
+
+  @PostConstruct
+  public void start() {
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "cups-job-tracker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = this.config.getCupsJobPollInterval();
+    this.executor.scheduleWithFixedDelay(this::pollSafe, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (this.executor != null) {
+      this.executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Starts tracking the job until CUPS reports a terminal state. The returned future completes with that state
+   * or exceptionally with a {@link TimeoutException} once the printer specific timeout for the given number of
+   * pages is exceeded.
+   */
+  public CompletableFuture<CupsJobState> track(CupsJobId jobId, int pages) {
+    long timeout = this.config.getJobTimeoutBase(jobId.getQueue())
+        + (long) this.config.getJobTimeoutPerPage(jobId.getQueue()) * Math.max(pages, 1);
+    TrackedJob job = new TrackedJob(System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout));
+    this.jobs.put(jobId, job);
+    return job.future;
+  }
+
+  public void untrack(CupsJobId jobId) {
+    TrackedJob job = this.jobs.remove(jobId);
+    if (job != null) {
+      job.future.cancel(false);
+    }
+  }
+
+  public CupsJobState getState(CupsJobId jobId) {
+    TrackedJob job = this.jobs.get(jobId);
+    return job != null ? job.state : null;
+  }
+
+  public int getTrackedJobs() {
+    return this.jobs.size();
+  }
+
+  private void pollSafe() {
+    try {
+      this.poll();
+    } catch (Exception e) {
+      Application.getLogger().warning("Error while updating CUPS job states: " + e.getMessage());
+    }
+  }
+
+  void poll() {
+    if (this.jobs.isEmpty()) {
+      return;
+    }
+
+    Map<Integer, CupsJobState> states = Map.of();
+    try {
+      states = this.printBackend.queryJobStates(this.jobs.keySet());
+    } catch (IOException e) {
+      Application.getLogger().warning("Error while querying CUPS job states: " + e.getMessage());
+    }
+
+    long now = System.nanoTime();
+    for (Map.Entry<CupsJobId, TrackedJob> entry : this.jobs.entrySet()) {
+      TrackedJob job = entry.getValue();
+      CupsJobState state = states.get(entry.getKey().getId());
+
+      if (state != null) {
+        job.state = state;
+      }
+
+      if (state != null && state.isTerminal()) {
+        this.jobs.remove(entry.getKey());
+        job.future.complete(state);
+      } else if (now - job.deadline > 0) {
+        this.jobs.remove(entry.getKey());
+        job.future.completeExceptionally(new TimeoutException("job " + entry.getKey() + " did not complete in time"));
+      }
+    }
+  }
+
+  private static class TrackedJob {
+
+    private final CompletableFuture<CupsJobState> future = new CompletableFuture<>();
+    private final long deadline;
+    private volatile CupsJobState state = CupsJobState.PENDING;
+
+    private TrackedJob(long deadline) {
+      this.deadline = deadline;
+    }
+  }
+}
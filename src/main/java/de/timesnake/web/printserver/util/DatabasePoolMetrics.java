@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects connection pool statistics reported by Hikari: active, idle and waiting connections as well as the
+ * time spent waiting for a connection.
+ */
+public class DatabasePoolMetrics implements MetricsTrackerFactory, IMetricsTracker {
+
+  private volatile PoolStats poolStats;
+
+  private final LongAdder acquired = new LongAdder();
+  private final LongAdder acquireNanos = new LongAdder();
+  private final AtomicLong maxAcquireNanos = new AtomicLong();
+  private final LongAdder usageMillis = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+
+  @Override
+  public IMetricsTracker create(String poolName, PoolStats poolStats) {
+    this.poolStats = poolStats;
+    return this;
+  }
+
+  @Override
+  public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+    this.acquired.increment();
+    this.acquireNanos.add(elapsedAcquiredNanos);
+    this.maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+  }
+
+  @Override
+  public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+    this.usageMillis.add(elapsedBorrowedMillis);
+  }
+
+  @Override
+  public void recordConnectionTimeout() {
+    this.timeouts.increment();
+  }
+
+  public int getActiveConnections() {
+    return this.poolStats != null ? this.poolStats.getActiveConnections() : 0;
+  }
+
+  public int getIdleConnections() {
+    return this.poolStats != null ? this.poolStats.getIdleConnections() : 0;
+  }
+
+  public int getTotalConnections() {
+    return this.poolStats != null ? this.poolStats.getTotalConnections() : 0;
+  }
+
+  public int getPendingThreads() {
+    return this.poolStats != null ? this.poolStats.getPendingThreads() : 0;
+  }
+
+  public long getAcquiredConnections() {
+    return this.acquired.sum();
+  }
+
+  public long getConnectionTimeouts() {
+    return this.timeouts.sum();
+  }
+
+  public Duration getAverageWaitTime() {
+    long count = this.acquired.sum();
+    return Duration.ofNanos(count > 0 ? this.acquireNanos.sum() / count : 0);
+  }
+
+  public Duration getTotalWaitTime() {
+    return Duration.ofNanos(this.acquireNanos.sum());
+  }
+
+  public Duration getMaxWaitTime() {
+    return Duration.ofNanos(this.maxAcquireNanos.get());
+  }
+
+  public Duration getAverageUsageTime() {
+    long count = this.acquired.sum();
+    return Duration.ofMillis(count > 0 ? this.usageMillis.sum() / count : 0);
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import java.util.List;
+
+public final class DocumentMetadata {
+
+  private final int pages;
+  private final List<PageSize> pageSizes;
+  private final boolean encrypted;
+  private final String hash;
+  private final long size;
+
+  public DocumentMetadata(int pages, List<PageSize> pageSizes, boolean encrypted, String hash, long size) {
+    this.pages = pages;
+    this.pageSizes = List.copyOf(pageSizes);
+    this.encrypted = encrypted;
+    this.hash = hash;
+    this.size = size;
+  }
+
+  public int getPages() {
+    return pages;
+  }
+
+  public List<PageSize> getPageSizes() {
+    return pageSizes;
+  }
+
+  public boolean isEncrypted() {
+    return encrypted;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public record PageSize(float width, float height) {
+
+    public boolean isLandscape() {
+      return width > height;
+    }
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed store of printable documents. Documents are kept under the hash of the uploaded file together
+ * with their metadata, so a repeated upload of the same content skips conversion and probing, and past jobs can be
+ * printed again without an upload. Documents not used for the configured time are removed.
+ */
+@Service
+public class DocumentStore {
+
+  private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+  private static final String PDF_SUFFIX = ".pdf";
+  private static final String METADATA_SUFFIX = ".properties";
+
+  private final Path directory;
+  private final Duration ttl;
+
+  private final ConcurrentHashMap<String, Document> documents = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService executor;
+
+  public DocumentStore(Config config) {
+    this.directory = Path.of(config.getDocumentStoreDirectory());
+    this.ttl = Duration.ofDays(config.getDocumentStoreTtlInDays());
+  }
+
+  @PostConstruct
+  public void init() throws IOException {
+    Files.createDirectories(this.directory);
+
+    try (Stream<Path> files = Files.list(this.directory)) {
+      files.forEach(file -> {
+        String name = file.getFileName().toString();
+        if (name.endsWith(METADATA_SUFFIX)) {
+          this.load(file);
+        } else if (name.endsWith(".tmp")) {
+          // left over from an interrupted store
+          try {
+            Files.deleteIfExists(file);
+          } catch (IOException e) {
+            Application.getLogger().warning("Unable to delete temporary file '" + file + "': " + e.getMessage());
+          }
+        }
+      });
+    }
+
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "document-store-cleanup");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.scheduleWithFixedDelay(this::cleanupSafe, 0, 1, TimeUnit.HOURS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (this.executor != null) {
+      this.executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return the stored document or {@code null} if there is none for the hash
+   */
+  public Document get(String hash) {
+    if (hash == null) {
+      return null;
+    }
+
+    Document document = this.documents.get(hash);
+    if (document == null) {
+      return null;
+    }
+
+    if (!document.getFile().exists()) {
+      this.documents.remove(hash, document);
+      return null;
+    }
+
+    document.touch();
+    return document;
+  }
+
+  public boolean contains(String hash) {
+    return hash != null && this.documents.containsKey(hash);
+  }
+
+  /**
+   * Stores the printable file under the hash of the source content. The file is linked into the store if
+   * possible and copied otherwise, the caller keeps ownership of the given file.
+   *
+   * @param hash     hash of the uploaded content
+   * @param file     printable pdf
+   * @param metadata metadata of the printable pdf
+   */
+  public Document put(String hash, File file, DocumentMetadata metadata) throws IOException {
+    if (hash == null || !HASH.matcher(hash).matches()) {
+      throw new IOException("invalid document hash '" + hash + "'");
+    }
+
+    Document existing = this.get(hash);
+    if (existing != null) {
+      return existing;
+    }
+
+    Path target = this.directory.resolve(hash + PDF_SUFFIX);
+    Path tmp = this.directory.resolve(hash + "." + UUID.randomUUID() + ".tmp");
+    try {
+      try {
+        Files.createLink(tmp, file.toPath());
+      } catch (IOException | UnsupportedOperationException e) {
+        Files.copy(file.toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+      }
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+
+    DocumentMetadata stored = new DocumentMetadata(metadata.getPages(), metadata.getPageSizes(),
+        metadata.isEncrypted(), hash, metadata.getSize());
+    this.writeMetadata(hash, stored);
+
+    Document document = new Document(hash, target.toFile(), stored, System.currentTimeMillis());
+    Document previous = this.documents.putIfAbsent(hash, document);
+    return previous != null ? previous : document;
+  }
+
+  public void delete(String hash) {
+    Document document = this.documents.remove(hash);
+    if (document == null) {
+      return;
+    }
+
+    try {
+      Files.deleteIfExists(this.directory.resolve(hash + METADATA_SUFFIX));
+      Files.deleteIfExists(document.getFile().toPath());
+    } catch (IOException e) {
+      Application.getLogger().warning("Unable to delete stored document '" + hash + "': " + e.getMessage());
+    }
+  }
+
+  public int getSize() {
+    return this.documents.size();
+  }
+
+  private void cleanupSafe() {
+    try {
+      this.cleanup();
+    } catch (Exception e) {
+      Application.getLogger().warning("Error while cleaning up document store: " + e.getMessage());
+    }
+  }
+
+  void cleanup() {
+    long deadline = System.currentTimeMillis() - this.ttl.toMillis();
+    for (Document document : List.copyOf(this.documents.values())) {
+      if (document.getLastAccess() < deadline) {
+        this.delete(document.getHash());
+      }
+    }
+  }
+
+  private void load(Path metadataFile) {
+    String fileName = metadataFile.getFileName().toString();
+    String hash = fileName.substring(0, fileName.length() - METADATA_SUFFIX.length());
+    Path pdf = this.directory.resolve(hash + PDF_SUFFIX);
+
+    try {
+      if (!HASH.matcher(hash).matches() || !Files.exists(pdf)) {
+        Files.deleteIfExists(metadataFile);
+        return;
+      }
+
+      Properties properties = new Properties();
+      try (InputStream in = Files.newInputStream(metadataFile)) {
+        properties.load(in);
+      }
+
+      List<DocumentMetadata.PageSize> pageSizes = new ArrayList<>();
+      String sizes = properties.getProperty("pageSizes", "");
+      if (!sizes.isEmpty()) {
+        for (String size : sizes.split(",")) {
+          int separator = size.indexOf('x');
+          pageSizes.add(new DocumentMetadata.PageSize(Float.parseFloat(size.substring(0, separator)),
+              Float.parseFloat(size.substring(separator + 1))));
+        }
+      }
+
+      DocumentMetadata metadata = new DocumentMetadata(Integer.parseInt(properties.getProperty("pages")),
+          pageSizes, Boolean.parseBoolean(properties.getProperty("encrypted")), hash,
+          Long.parseLong(properties.getProperty("size")));
+      this.documents.put(hash, new Document(hash, pdf.toFile(), metadata,
+          Files.getLastModifiedTime(pdf).toMillis()));
+    } catch (IOException | RuntimeException e) {
+      Application.getLogger().warning("Unable to load stored document '" + hash + "': " + e.getMessage());
+    }
+  }
+
+  private void writeMetadata(String hash, DocumentMetadata metadata) throws IOException {
+    StringJoiner sizes = new StringJoiner(",");
+    for (DocumentMetadata.PageSize size : metadata.getPageSizes()) {
+      sizes.add(size.width() + "x" + size.height());
+    }
+
+    Properties properties = new Properties();
+    properties.setProperty("pages", String.valueOf(metadata.getPages()));
+    properties.setProperty("encrypted", String.valueOf(metadata.isEncrypted()));
+    properties.setProperty("size", String.valueOf(metadata.getSize()));
+    properties.setProperty("pageSizes", sizes.toString());
+
+    Path target = this.directory.resolve(hash + METADATA_SUFFIX);
+    Path tmp = this.directory.resolve(hash + METADATA_SUFFIX + ".tmp");
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      properties.store(out, null);
+    }
+    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public static final class Document {
+
+    private final String hash;
+    private final File file;
+    private final DocumentMetadata metadata;
+    private volatile long lastAccess;
+
+    private Document(String hash, File file, DocumentMetadata metadata, long lastAccess) {
+      this.hash = hash;
+      this.file = file;
+      this.metadata = metadata;
+      this.lastAccess = lastAccess;
+    }
+
+    private void touch() {
+      long now = System.currentTimeMillis();
+      if (now - this.lastAccess < TimeUnit.MINUTES.toMillis(1)) {
+        return;
+      }
+      this.lastAccess = now;
+      try {
+        // keep the access time across restarts
+        Files.setLastModifiedTime(this.file.toPath(), FileTime.fromMillis(now));
+      } catch (IOException ignored) {
+
+      }
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public File getFile() {
+      return file;
+    }
+
+    public DocumentMetadata getMetadata() {
+      return metadata;
+    }
+
+    public long getLastAccess() {
+      return lastAccess;
+    }
+  }
+}
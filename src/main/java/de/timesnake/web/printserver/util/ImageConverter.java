@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts JPEG, PNG and (multi-page) TIFF images into a PDF with one page per image. Pages are prepared on a
+ * bounded worker pool and written in order as soon as they are ready, so at most a few pages are held in memory.
+ * Images with more pixels than needed for the target resolution are decoded with subsampling, which keeps the heap
+ * use bounded by the page size rather than the image size. JPEG images that fit the resolution are embedded as is.
+ */
+public class ImageConverter {
+
+  private static final float MARGIN = 18;
+  private static final float JPEG_QUALITY = 0.9f;
+
+  private final int dpi;
+  private final int threads;
+  private final ExecutorService executor;
+
+  public ImageConverter(int dpi, int threads) {
+    this.dpi = dpi;
+    this.threads = threads;
+
+    AtomicInteger threadIds = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        r -> {
+          Thread thread = new Thread(r, "image-converter-" + threadIds.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    ((ThreadPoolExecutor) this.executor).allowCoreThreadTimeOut(true);
+  }
+
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+
+  public static boolean isSupported(SpoolFile.FileType type) {
+    return switch (type) {
+      case JPEG, PNG, TIFF -> true;
+      default -> false;
+    };
+  }
+
+  /**
+   * Writes all pages of the given images into one pdf.
+   */
+  public void convert(List<File> sources, File dstFile) throws IOException, DocumentException {
+    List<PageSource> pages = new ArrayList<>();
+    for (File source : sources) {
+      int count = countPages(source);
+      for (int i = 0; i < count; i++) {
+        pages.add(new PageSource(source, i));
+      }
+    }
+
+    if (pages.isEmpty()) {
+      throw new IOException("no images to convert");
+    }
+
+    Document document = new Document(PageSize.A4, MARGIN, MARGIN, MARGIN, MARGIN);
+    ArrayDeque<Future<Image>> pending = new ArrayDeque<>(this.threads);
+    Iterator<PageSource> next = pages.iterator();
+
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(dstFile))) {
+      PdfWriter.getInstance(document, out);
+
+      while (next.hasNext() || !pending.isEmpty()) {
+        while (next.hasNext() && pending.size() < this.threads) {
+          PageSource page = next.next();
+          pending.add(this.executor.submit(() -> this.prepare(page)));
+        }
+
+        Image image = await(pending.poll());
+
+        Rectangle pageSize = image.getWidth() > image.getHeight() ? PageSize.A4.rotate() : PageSize.A4;
+        document.setPageSize(pageSize);
+        if (document.isOpen()) {
+          document.newPage();
+        } else {
+          document.open();
+        }
+
+        image.scaleToFit(pageSize.getWidth() - 2 * MARGIN, pageSize.getHeight() - 2 * MARGIN);
+        image.setAbsolutePosition((pageSize.getWidth() - image.getScaledWidth()) / 2,
+            (pageSize.getHeight() - image.getScaledHeight()) / 2);
+        document.add(image);
+      }
+
+      document.close();
+    } catch (IOException | DocumentException | RuntimeException e) {
+      pending.forEach(f -> f.cancel(true));
+      dstFile.delete();
+      throw e;
+    }
+  }
+
+  private static Image await(Future<Image> future) throws IOException, DocumentException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("image conversion interrupted");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      if (e.getCause() instanceof DocumentException doc) {
+        throw doc;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static int countPages(File source) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+      ImageReader reader = createReader(source, in);
+      try {
+        reader.setInput(in, false, true);
+        return reader.getNumImages(true);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  private static ImageReader createReader(File source, ImageInputStream in) throws IOException {
+    if (in == null) {
+      throw new IOException("unable to read image '" + source.getName() + "'");
+    }
+
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+    if (!readers.hasNext()) {
+      throw new IOException("unsupported image format of '" + source.getName() + "'");
+    }
+    return readers.next();
+  }
+
+  private Image prepare(PageSource page) throws IOException, BadElementException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(page.file())) {
+      ImageReader reader = createReader(page.file(), in);
+      try {
+        reader.setInput(in, false, true);
+        int width = reader.getWidth(page.index());
+        int height = reader.getHeight(page.index());
+        int subsampling = this.subsampling(width, height);
+        boolean jpeg = reader.getFormatName().equalsIgnoreCase("jpeg");
+
+        if (jpeg && subsampling == 1) {
+          return Image.getInstance(Files.readAllBytes(page.file().toPath()));
+        }
+
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+        BufferedImage decoded;
+        try {
+          decoded = reader.read(page.index(), param);
+        } catch (IOException e) {
+          if (jpeg) {
+            // color spaces like CMYK are not supported by the decoder, embed the original
+            return Image.getInstance(Files.readAllBytes(page.file().toPath()));
+          }
+          throw e;
+        }
+
+        return jpeg ? Image.getInstance(encodeJpeg(decoded)) : Image.getInstance(decoded, null);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * @return the subsampling factor needed to get close to the target resolution on an A4 page
+   */
+  int subsampling(int width, int height) {
+    boolean landscape = width > height;
+    float pageWidth = (landscape ? PageSize.A4.getHeight() : PageSize.A4.getWidth()) - 2 * MARGIN;
+    float pageHeight = (landscape ? PageSize.A4.getWidth() : PageSize.A4.getHeight()) - 2 * MARGIN;
+
+    float scale = Math.min(pageWidth / width, pageHeight / height);
+    float maxWidth = width * scale / 72 * this.dpi;
+    return Math.max(1, (int) (width / maxWidth));
+  }
+
+  private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+    if (image.getColorModel().hasAlpha()) {
+      BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+      rgb.createGraphics().drawImage(image, 0, 0, java.awt.Color.WHITE, null);
+      image = rgb;
+    }
+
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(bytes)) {
+      writer.setOutput(out);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(JPEG_QUALITY);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return bytes.toByteArray();
+  }
+
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  public int getDpi() {
+    return dpi;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  private record PageSource(File file, int index) {
+
+  }
+}
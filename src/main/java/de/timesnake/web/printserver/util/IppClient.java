@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IppClient {
+
+  private final HttpClient httpClient;
+  private final URI serverUri;
+  private final Duration timeout;
+
+  private final AtomicInteger requestIds = new AtomicInteger();
+
+  public IppClient(URI serverUri, Duration timeout) {
+    this.serverUri = serverUri;
+    this.timeout = timeout;
+    this.httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(timeout)
+        .build();
+  }
+
+  public IppMessage createRequest(int operation) {
+    IppMessage request = new IppMessage(operation, this.requestIds.incrementAndGet());
+    request.group(IppMessage.OPERATION_ATTRIBUTES)
+        .add(IppMessage.CHARSET, "attributes-charset", "utf-8")
+        .add(IppMessage.NATURAL_LANGUAGE, "attributes-natural-language", "en");
+    return request;
+  }
+
+  public String getPrinterUri(String queue) {
+    return "ipp://" + this.serverUri.getHost() + ":" + this.getPort() + "/printers/" + queue;
+  }
+
+  public String getServerUri() {
+    return "ipp://" + this.serverUri.getHost() + ":" + this.getPort() + "/";
+  }
+
+  private int getPort() {
+    return this.serverUri.getPort() != -1 ? this.serverUri.getPort() : 631;
+  }
+
+  public IppMessage send(String path, IppMessage request) throws IOException {
+    return this.send(path, request, null);
+  }
+
+  /**
+   * Sends the request and streams the document, if given, directly from the file after the attributes.
+   */
+  public IppMessage send(String path, IppMessage request, Path document) throws IOException {
+    HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofByteArray(request.encode());
+    if (document != null) {
+      body = HttpRequest.BodyPublishers.concat(body, HttpRequest.BodyPublishers.ofFile(document));
+    }
+
+    HttpRequest httpRequest = HttpRequest.newBuilder(this.serverUri.resolve(path))
+        .timeout(this.timeout)
+        .header("Content-Type", "application/ipp")
+        .POST(body)
+        .build();
+
+    HttpResponse<byte[]> response;
+    try {
+      response = this.httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for CUPS");
+    }
+
+    if (response.statusCode() != 200) {
+      throw new IOException("CUPS responded with HTTP status " + response.statusCode());
+    }
+
+    return IppMessage.decode(response.body());
+  }
+}
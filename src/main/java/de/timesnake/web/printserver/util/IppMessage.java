@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Minimal encoder/decoder for IPP/1.1 messages (RFC 8010), covering the value types used by CUPS for job
+ * submission and job state queries.
+ */
+public final class IppMessage {
+
+  public static final int OPERATION_ATTRIBUTES = 0x01;
+  public static final int JOB_ATTRIBUTES = 0x02;
+  public static final int END_OF_ATTRIBUTES = 0x03;
+  public static final int PRINTER_ATTRIBUTES = 0x04;
+  public static final int UNSUPPORTED_ATTRIBUTES = 0x05;
+
+  public static final int INTEGER = 0x21;
+  public static final int BOOLEAN = 0x22;
+  public static final int ENUM = 0x23;
+  public static final int RANGE_OF_INTEGER = 0x33;
+  public static final int TEXT = 0x41;
+  public static final int NAME = 0x42;
+  public static final int KEYWORD = 0x44;
+  public static final int URI = 0x45;
+  public static final int CHARSET = 0x47;
+  public static final int NATURAL_LANGUAGE = 0x48;
+  public static final int MIME_MEDIA_TYPE = 0x49;
+
+  public static final int PRINT_JOB = 0x0002;
+  public static final int CANCEL_JOB = 0x0008;
+  public static final int GET_JOB_ATTRIBUTES = 0x0009;
+  public static final int GET_JOBS = 0x000A;
+
+  public static final int SUCCESSFUL_OK = 0x0000;
+  public static final int CLIENT_ERROR_NOT_FOUND = 0x0406;
+  public static final int SERVER_ERROR_OPERATION_NOT_SUPPORTED = 0x0501;
+
+  private static final int VERSION = 0x0101;
+
+  public static IppMessage decode(byte[] data) throws IOException {
+    return decode(new ByteArrayInputStream(data));
+  }
+
+  /**
+   * Reads the message header and attributes. The stream is left positioned at the start of the document data,
+   * if any.
+   */
+  public static IppMessage decode(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(stream);
+    in.readUnsignedShort();
+    IppMessage message = new IppMessage(in.readUnsignedShort(), in.readInt());
+
+    Group group = null;
+    String name = null;
+    int tag;
+    while ((tag = in.read()) != END_OF_ATTRIBUTES) {
+      if (tag < 0) {
+        throw new EOFException("missing end-of-attributes tag");
+      }
+
+      if (tag < 0x10) {
+        group = message.group(tag);
+        continue;
+      }
+
+      if (group == null) {
+        throw new IOException("attribute outside of attribute group");
+      }
+
+      int nameLength = in.readUnsignedShort();
+      if (nameLength > 0) {
+        name = new String(in.readNBytes(nameLength), StandardCharsets.UTF_8);
+      }
+
+      byte[] value = in.readNBytes(in.readUnsignedShort());
+      group.addValue(tag, name, decodeValue(tag, value));
+    }
+
+    return message;
+  }
+
+  private static Object decodeValue(int tag, byte[] value) {
+    return switch (tag) {
+      case INTEGER, ENUM -> value.length == 4 ? toInt(value, 0) : null;
+      case BOOLEAN -> value.length == 1 && value[0] != 0;
+      case RANGE_OF_INTEGER -> value.length == 8 ? new int[]{toInt(value, 0), toInt(value, 4)} : null;
+      default -> tag < 0x20 ? null : tag >= 0x40 ? new String(value, StandardCharsets.UTF_8) : value;
+    };
+  }
+
+  private static int toInt(byte[] b, int offset) {
+    return (b[offset] & 0xFF) << 24 | (b[offset + 1] & 0xFF) << 16 | (b[offset + 2] & 0xFF) << 8
+        | (b[offset + 3] & 0xFF);
+  }
+
+  private final int code;
+  private final int requestId;
+  private final List<Group> groups = new ArrayList<>();
+
+  /**
+   * @param code operation id for requests, status code for responses
+   */
+  public IppMessage(int code, int requestId) {
+    this.code = code;
+    this.requestId = requestId;
+  }
+
+  public Group group(int tag) {
+    Group group = new Group(tag);
+    this.groups.add(group);
+    return group;
+  }
+
+  public Group getGroup(int tag) {
+    for (Group group : this.groups) {
+      if (group.getTag() == tag) {
+        return group;
+      }
+    }
+    return null;
+  }
+
+  public List<Group> getGroups(int tag) {
+    return this.groups.stream().filter(g -> g.getTag() == tag).toList();
+  }
+
+  public int getCode() {
+    return code;
+  }
+
+  public int getRequestId() {
+    return requestId;
+  }
+
+  public boolean isSuccessful() {
+    return this.code < 0x0100;
+  }
+
+  public byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    DataOutputStream out = new DataOutputStream(bytes);
+
+    try {
+      out.writeShort(VERSION);
+      out.writeShort(this.code);
+      out.writeInt(this.requestId);
+
+      for (Group group : this.groups) {
+        out.writeByte(group.getTag());
+        for (Map.Entry<String, Attribute> entry : group.attributes.entrySet()) {
+          boolean first = true;
+          for (Object value : entry.getValue().values()) {
+            out.writeByte(entry.getValue().valueTag());
+            writeString(out, first ? entry.getKey() : "");
+            writeValue(out, entry.getValue().valueTag(), value);
+            first = false;
+          }
+        }
+      }
+
+      out.writeByte(END_OF_ATTRIBUTES);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  private static void writeValue(DataOutputStream out, int tag, Object value) throws IOException {
+    switch (tag) {
+      case INTEGER, ENUM -> {
+        out.writeShort(4);
+        out.writeInt((Integer) value);
+      }
+      case BOOLEAN -> {
+        out.writeShort(1);
+        out.writeByte((Boolean) value ? 1 : 0);
+      }
+      case RANGE_OF_INTEGER -> {
+        int[] range = (int[]) value;
+        out.writeShort(8);
+        out.writeInt(range[0]);
+        out.writeInt(range[1]);
+      }
+      default -> {
+        if (value instanceof byte[] raw) {
+          out.writeShort(raw.length);
+          out.write(raw);
+        } else {
+          writeString(out, value == null ? "" : value.toString());
+        }
+      }
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    out.writeShort(b.length);
+    out.write(b);
+  }
+
+  public static class Group {
+
+    private final int tag;
+    private final Map<String, Attribute> attributes = new LinkedHashMap<>();
+
+    public Group(int tag) {
+      this.tag = tag;
+    }
+
+    public int getTag() {
+      return tag;
+    }
+
+    public Group add(int valueTag, String name, Object... values) {
+      this.attributes.put(name, new Attribute(valueTag, new ArrayList<>(Arrays.asList(values))));
+      return this;
+    }
+
+    private void addValue(int valueTag, String name, Object value) {
+      this.attributes.computeIfAbsent(name, n -> new Attribute(valueTag, new ArrayList<>(1))).values().add(value);
+    }
+
+    public List<Object> getValues(String name) {
+      Attribute attribute = this.attributes.get(name);
+      return attribute != null ? attribute.values() : List.of();
+    }
+
+    public int getInt(String name) {
+      List<Object> values = this.getValues(name);
+      return !values.isEmpty() && values.get(0) instanceof Integer i ? i : -1;
+    }
+
+    public String getString(String name) {
+      List<Object> values = this.getValues(name);
+      return !values.isEmpty() && values.get(0) instanceof String s ? s : null;
+    }
+  }
+
+  public record Attribute(int valueTag, List<Object> values) {
+
+  }
+}
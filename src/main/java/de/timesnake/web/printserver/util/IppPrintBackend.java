@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import java.io.IOException;
+import java.util.*;
+
+public class IppPrintBackend implements PrintBackend {
+
+  private final IppClient client;
+
+  public IppPrintBackend(IppClient client) {
+    this.client = client;
+  }
+
+  public IppClient getClient() {
+    return client;
+  }
+
+  @Override
+  public CupsJobId submit(PrintRequest request) throws IOException {
+    String queue = request.getPrinter().getCupsName();
+
+    IppMessage response = this.client.send("/printers/" + queue, this.createPrintJob(request),
+        request.getPrintFile().toPath());
+
+    if (!response.isSuccessful()) {
+      throw new IOException(errorMessage(response));
+    }
+
+    IppMessage.Group job = response.getGroup(IppMessage.JOB_ATTRIBUTES);
+    int jobId = job != null ? job.getInt("job-id") : -1;
+    return jobId > 0 ? new CupsJobId(queue, jobId) : null;
+  }
+
+  /**
+   * Jobs missing from the Get-Jobs response were purged from the CUPS job history, with
+   * {@code PreserveJobHistory No} right when they finished, and are reported as completed like the lp backend does.
+   * Canceled and aborted jobs can not be distinguished from completed ones then.
+   */
+  @Override
+  public Map<Integer, CupsJobState> queryJobStates(Collection<CupsJobId> jobs) throws IOException {
+    int firstJobId = jobs.stream().mapToInt(CupsJobId::getId).min().orElse(1);
+
+    IppMessage request = this.client.createRequest(IppMessage.GET_JOBS);
+    request.getGroup(IppMessage.OPERATION_ATTRIBUTES)
+        .add(IppMessage.URI, "printer-uri", this.client.getServerUri())
+        .add(IppMessage.KEYWORD, "which-jobs", "all")
+        .add(IppMessage.INTEGER, "first-job-id", firstJobId)
+        .add(IppMessage.KEYWORD, "requested-attributes", "job-id", "job-state");
+
+    IppMessage response = this.client.send("/", request);
+    if (!response.isSuccessful()) {
+      throw new IOException(errorMessage(response));
+    }
+
+    Map<Integer, CupsJobState> states = new HashMap<>();
+    Set<Integer> listed = new HashSet<>();
+    for (IppMessage.Group job : response.getGroups(IppMessage.JOB_ATTRIBUTES)) {
+      int jobId = job.getInt("job-id");
+      listed.add(jobId);
+      CupsJobState state = CupsJobState.fromIpp(job.getInt("job-state"));
+      if (state != null) {
+        states.put(jobId, state);
+      }
+    }
+
+    for (CupsJobId job : jobs) {
+      if (!listed.contains(job.getId())) {
+        states.put(job.getId(), CupsJobState.COMPLETED);
+      }
+    }
+    return states;
+  }
+
+  @Override
+  public void cancel(CupsJobId job, String user) throws IOException {
+    IppMessage request = this.client.createRequest(IppMessage.CANCEL_JOB);
+    request.getGroup(IppMessage.OPERATION_ATTRIBUTES)
+        .add(IppMessage.URI, "printer-uri", this.client.getPrinterUri(job.getQueue()))
+        .add(IppMessage.INTEGER, "job-id", job.getId())
+        .add(IppMessage.NAME, "requesting-user-name", user);
+
+    IppMessage response = this.client.send("/jobs", request);
+    if (!response.isSuccessful()) {
+      throw new IOException(errorMessage(response));
+    }
+  }
+
+  IppMessage createPrintJob(PrintRequest request) {
+    IppMessage ipp = this.client.createRequest(IppMessage.PRINT_JOB);
+
+    IppMessage.Group operation = ipp.getGroup(IppMessage.OPERATION_ATTRIBUTES)
+        .add(IppMessage.URI, "printer-uri", this.client.getPrinterUri(request.getPrinter().getCupsName()))
+        .add(IppMessage.NAME, "requesting-user-name", request.getUser().getUsername());
+    if (request.getName() != null) {
+      operation.add(IppMessage.NAME, "job-name", request.getName());
+    }
+    operation.add(IppMessage.MIME_MEDIA_TYPE, "document-format", "application/pdf");
+
+    IppMessage.Group job = ipp.group(IppMessage.JOB_ATTRIBUTES)
+        .add(IppMessage.INTEGER, "copies", request.getCopies())
+        .add(IppMessage.KEYWORD, "sides", request.getSides().getKeyword());
+    if (!request.isImposed()) {
+      // imposed files are already turned and laid out
+      job.add(IppMessage.ENUM, "orientation-requested", request.getOrientation().getIppValue());
+      job.add(IppMessage.INTEGER, "number-up", request.getPerPage().getNumber());
+      if (request.getPageRange() != null) {
+        job.add(IppMessage.RANGE_OF_INTEGER, "page-ranges", request.getPageRange().getRanges().toArray());
+      }
+    }
+
+    return ipp;
+  }
+
+  static String errorMessage(IppMessage response) {
+    IppMessage.Group operation = response.getGroup(IppMessage.OPERATION_ATTRIBUTES);
+    String message = operation != null ? operation.getString("status-message") : null;
+    return "CUPS responded with status 0x" + Integer.toHexString(response.getCode())
+        + (message != null ? " (" + message + ")" : "");
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.util.*;
+
+public class LpPrintBackend implements PrintBackend {
+
+  private static final String REQUEST_ID_PREFIX = "request id is ";
+
+  @Override
+  public CupsJobId submit(PrintRequest request) throws IOException {
+    Process process = new ProcessBuilder(this.buildCmd(request))
+        .redirectErrorStream(true)
+        .start();
+
+    CupsJobId jobId = null;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int index = line.indexOf(REQUEST_ID_PREFIX);
+        if (index >= 0) {
+          jobId = CupsJobId.parse(line.substring(index + REQUEST_ID_PREFIX.length()).split(" ")[0]);
+        } else {
+          Application.getLogger().warning("Error while executing job '" + request.getName() + "' of user '" +
+              request.getUser().getUsername() + "': " + line);
+        }
+      }
+    }
+
+    waitFor(process, "lp");
+    return jobId;
+  }
+
+  /**
+   * lpstat only lists jobs that are not completed yet, so every other job is reported as completed. Canceled and
+   * aborted jobs can not be distinguished this way.
+   */
+  @Override
+  public Map<Integer, CupsJobState> queryJobStates(Collection<CupsJobId> jobs) throws IOException {
+    Process process = new ProcessBuilder("lpstat", "-W", "not-completed", "-o")
+        .redirectErrorStream(true)
+        .start();
+
+    Set<Integer> active = new HashSet<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        CupsJobId jobId = CupsJobId.parse(line.split(" ", 2)[0]);
+        if (jobId != null) {
+          active.add(jobId.getId());
+        }
+      }
+    }
+
+    waitFor(process, "lpstat");
+
+    Map<Integer, CupsJobState> states = new HashMap<>();
+    for (CupsJobId job : jobs) {
+      states.put(job.getId(), active.contains(job.getId()) ? CupsJobState.PROCESSING : CupsJobState.COMPLETED);
+    }
+    return states;
+  }
+
+  @Override
+  public void cancel(CupsJobId job, String user) throws IOException {
+    Process process = new ProcessBuilder("cancel", "-u", user, job.toString())
+        .redirectErrorStream(true)
+        .start();
+
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        Application.getLogger().warning("Error while canceling job '" + job + "': " + line);
+      }
+    }
+
+    waitFor(process, "cancel");
+  }
+
+  /**
+   * @throws IOException if the command exited with an error code
+   */
+  private static void waitFor(Process process, String command) throws IOException {
+    try {
+      if (process.waitFor() != 0) {
+        throw new IOException(command + " exited with code " + process.exitValue());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for " + command);
+    }
+  }
+
+  List<String> buildCmd(PrintRequest request) {
+    String options = request.getSides().getCmd();
+    if (!request.isImposed()) {
+      // imposed files are already turned and laid out
+      options += request.getOrientation().getCmd() + request.getPerPage().getCmd()
+          + (request.getPageRange() != null ? request.getPageRange().getCmd() : "");
+    }
+    return buildCmd(request.getPrinter().getCupsName(), request.getCopies(), request.getName(), options,
+        request.getPrintFile().getAbsolutePath());
+  }
+
+  /**
+   * @param options space separated lp options, as returned by the {@code getCmd} methods of the print settings
+   */
+  static List<String> buildCmd(String cupsName, int copies, String title, String options, String path) {
+    List<String> cmd = new ArrayList<>();
+    cmd.add("lp");
+    cmd.add("-d");
+    cmd.add(cupsName);
+    cmd.add("-n");
+    cmd.add(String.valueOf(copies));
+
+    if (title != null) {
+      cmd.add("-t");
+      cmd.add(title);
+    }
+
+    for (String option : options.split(" ")) {
+      if (!option.isEmpty()) {
+        cmd.add(option);
+      }
+    }
+
+    cmd.add("--");
+    cmd.add(path);
+    return cmd;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses lines of the CUPS page_log in the format given in the README
+ * ({@code %p,%j,%T,%P,%C,%{job-name},%{sides},%{job-impressions-completed},%{job-media-sheets-completed}})
+ * directly from the read buffer without creating strings. The job name may contain commas, so the trailing
+ * fields are read from the end of the line.
+ */
+public final class PageLogParser {
+
+  private static final byte SEPARATOR = ',';
+  private static final byte[] TOTAL = "total".getBytes(StandardCharsets.US_ASCII);
+
+  private PageLogParser() {
+
+  }
+
+  public static boolean parse(byte[] buf, int start, int end, Record record) {
+    int printerEnd = indexOf(buf, start, end);
+    if (printerEnd < 0) {
+      return false;
+    }
+
+    int jobEnd = indexOf(buf, printerEnd + 1, end);
+    if (jobEnd < 0) {
+      return false;
+    }
+
+    int jobId = parseInt(buf, printerEnd + 1, jobEnd);
+    if (jobId < 0) {
+      return false;
+    }
+
+    int timeEnd = indexOf(buf, jobEnd + 1, end);
+    if (timeEnd < 0) {
+      return false;
+    }
+
+    int pageEnd = indexOf(buf, timeEnd + 1, end);
+    if (pageEnd < 0) {
+      return false;
+    }
+
+    int sheetsStart = lastIndexOf(buf, pageEnd + 1, end);
+    int impressionsStart = sheetsStart > pageEnd ? lastIndexOf(buf, pageEnd + 1, sheetsStart) : -1;
+
+    record.buf = buf;
+    record.printerStart = start;
+    record.printerEnd = printerEnd;
+    record.jobId = jobId;
+    record.total = equals(buf, timeEnd + 1, pageEnd, TOTAL);
+    record.page = record.total ? -1 : parseInt(buf, timeEnd + 1, pageEnd);
+    record.impressions = impressionsStart > pageEnd ? parseInt(buf, impressionsStart + 1, sheetsStart) : -1;
+    return true;
+  }
+
+  private static int indexOf(byte[] buf, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (buf[i] == SEPARATOR) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(byte[] buf, int from, int to) {
+    for (int i = to - 1; i >= from; i--) {
+      if (buf[i] == SEPARATOR) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int parseInt(byte[] buf, int from, int to) {
+    if (from >= to || to - from > 9) {
+      return -1;
+    }
+
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      int digit = buf[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  private static boolean equals(byte[] buf, int from, int to, byte[] value) {
+    if (to - from != value.length) {
+      return false;
+    }
+
+    for (int i = 0; i < value.length; i++) {
+      if (buf[from + i] != value[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static class Record {
+
+    private byte[] buf;
+    private int printerStart;
+    private int printerEnd;
+
+    private int jobId;
+    private int page;
+    private boolean total;
+    private int impressions;
+
+    private long readNanos;
+
+    public int getJobId() {
+      return jobId;
+    }
+
+    public int getPage() {
+      return page;
+    }
+
+    public boolean isTotal() {
+      return total;
+    }
+
+    public int getImpressions() {
+      return impressions;
+    }
+
+    public boolean isPrinter(String printer) {
+      if (printer.length() != printerEnd - printerStart) {
+        return false;
+      }
+
+      for (int i = 0; i < printer.length(); i++) {
+        if (buf[printerStart + i] != printer.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} when the line was read from the page_log
+     */
+    public long getReadNanos() {
+      return readNanos;
+    }
+
+    void setReadNanos(long readNanos) {
+      this.readNanos = readNanos;
+    }
+
+    public String getPrinter() {
+      return new String(buf, printerStart, printerEnd - printerStart, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class PageLogTailer {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final long UNMATCHED_RETENTION_NANOS = TimeUnit.SECONDS.toNanos(60);
+  private static final int MAX_UNMATCHED_JOBS = 256;
+  private static final int MAX_UNMATCHED_LINES = 16;
+
+  private final Path path;
+  private final long pollInterval;
+
+  private final ConcurrentHashMap<Integer, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+  /**
+   * Recent lines of jobs without subscriber, oldest job first. CUPS may log pages of a job before its id is known
+   * to us and the job subscribes, so they are replayed on {@link #subscribe(int, Subscriber)}.
+   */
+  private final LinkedHashMap<Integer, List<UnmatchedLine>> unmatched = new LinkedHashMap<>();
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private final PageLogParser.Record record = new PageLogParser.Record();
+
+  private ScheduledExecutorService executor;
+  private FileChannel channel;
+  private Object fileKey;
+  private long offset;
+  // skipping the rest of a line longer than the buffer
+  private boolean discarding;
+
+  @Autowired
+  public PageLogTailer(Config config) {
+    this(Path.of(config.getCupsLogFilePath()), config.getCupsLogPollInterval());
+  }
+
+  PageLogTailer(Path path, long pollInterval) {
+    this.path = path;
+    this.pollInterval = pollInterval;
+  }
+
+  @PostConstruct
+  public void start() {
+    try {
+      this.open();
+      this.offset = this.channel.size();
+    } catch (NoSuchFileException e) {
+      Application.getLogger().warning("CUPS page log '" + this.path + "' does not exist yet");
+    } catch (IOException e) {
+      Application.getLogger().warning("Failed to open CUPS page log '" + this.path + "': " + e.getMessage());
+    }
+
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "page-log-tailer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.scheduleWithFixedDelay(this::pollSafe, this.pollInterval, this.pollInterval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (this.executor != null) {
+      this.executor.shutdownNow();
+    }
+    this.close();
+  }
+
+  /**
+   * Subscribes to the lines of the job, starting with the lines logged within the last minute.
+   */
+  public synchronized void subscribe(int jobId, Subscriber subscriber) {
+    this.subscribers.put(jobId, subscriber);
+
+    List<UnmatchedLine> lines = this.unmatched.remove(jobId);
+    if (lines != null) {
+      for (UnmatchedLine line : lines) {
+        if (PageLogParser.parse(line.bytes(), 0, line.bytes().length, this.record)) {
+          this.record.setReadNanos(line.readNanos());
+          subscriber.onPageLog(this.record);
+        }
+      }
+    }
+  }
+
+  public void unsubscribe(int jobId) {
+    this.subscribers.remove(jobId);
+  }
+
+  private void pollSafe() {
+    try {
+      this.poll();
+    } catch (Exception e) {
+      Application.getLogger().warning("Error while reading CUPS page log: " + e.getMessage());
+    }
+  }
+
+  synchronized void poll() throws IOException {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      return;
+    }
+
+    if (this.channel != null && this.fileKey != null && !Objects.equals(this.fileKey, attributes.fileKey())) {
+      // rotated, finish the old file before switching to the new one
+      this.read();
+      this.close();
+    }
+
+    if (this.channel == null) {
+      this.open();
+    }
+
+    if (this.channel.size() < this.offset) {
+      // truncated
+      this.offset = 0;
+      this.buffer.clear();
+      this.discarding = false;
+    }
+
+    this.read();
+    this.expireUnmatched();
+  }
+
+  private void open() throws IOException {
+    this.channel = FileChannel.open(this.path, StandardOpenOption.READ);
+    this.fileKey = Files.readAttributes(this.path, BasicFileAttributes.class).fileKey();
+    this.offset = 0;
+    this.buffer.clear();
+    this.discarding = false;
+  }
+
+  private void close() {
+    if (this.channel != null) {
+      try {
+        this.channel.close();
+      } catch (IOException ignored) {
+
+      }
+    }
+    this.channel = null;
+    this.fileKey = null;
+  }
+
+  private void read() throws IOException {
+    byte[] buf = this.buffer.array();
+
+    int read;
+    while ((read = this.channel.read(this.buffer, this.offset)) > 0) {
+      this.offset += read;
+      this.record.setReadNanos(System.nanoTime());
+
+      int limit = this.buffer.position();
+      int lineStart = 0;
+      for (int i = 0; i < limit; i++) {
+        if (buf[i] == '\n') {
+          if (this.discarding) {
+            this.discarding = false;
+          } else {
+            int lineEnd = i > lineStart && buf[i - 1] == '\r' ? i - 1 : i;
+            this.handleLine(buf, lineStart, lineEnd);
+          }
+          lineStart = i + 1;
+        }
+      }
+
+      if (lineStart == 0 && limit == buf.length) {
+        // line longer than the buffer, drop it up to its end
+        this.discarding = true;
+        this.buffer.clear();
+        continue;
+      }
+
+      System.arraycopy(buf, lineStart, buf, 0, limit - lineStart);
+      this.buffer.position(limit - lineStart);
+    }
+  }
+
+  private void handleLine(byte[] buf, int start, int end) {
+    if (!PageLogParser.parse(buf, start, end, this.record)) {
+      return;
+    }
+
+    Subscriber subscriber = this.subscribers.get(this.record.getJobId());
+    if (subscriber != null) {
+      subscriber.onPageLog(this.record);
+      return;
+    }
+
+    List<UnmatchedLine> lines = this.unmatched.get(this.record.getJobId());
+    if (lines == null) {
+      if (this.unmatched.size() >= MAX_UNMATCHED_JOBS) {
+        this.unmatched.remove(this.unmatched.keySet().iterator().next());
+      }
+      lines = new ArrayList<>(2);
+      this.unmatched.put(this.record.getJobId(), lines);
+    }
+
+    UnmatchedLine line = new UnmatchedLine(Arrays.copyOfRange(buf, start, end), this.record.getReadNanos());
+    if (lines.size() < MAX_UNMATCHED_LINES) {
+      lines.add(line);
+    } else {
+      // keep the first and the latest lines
+      lines.set(lines.size() - 1, line);
+    }
+  }
+
+  private void expireUnmatched() {
+    long now = System.nanoTime();
+    Iterator<List<UnmatchedLine>> iterator = this.unmatched.values().iterator();
+    while (iterator.hasNext()) {
+      List<UnmatchedLine> lines = iterator.next();
+      if (now - lines.get(0).readNanos() < UNMATCHED_RETENTION_NANOS) {
+        break;
+      }
+      iterator.remove();
+    }
+  }
+
+  private record UnmatchedLine(byte[] bytes, long readNanos) {
+
+  }
+
+  @FunctionalInterface
+  public interface Subscriber {
+
+    void onPageLog(PageLogParser.Record record);
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.multipdf.LayerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.util.Matrix;
+
+import java.awt.geom.AffineTransform;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Extracts pages of a pdf and places several of them on one sheet, as CUPS does for {@code page-ranges} and
+ * {@code number-up}. Pages are laid out left to right, top to bottom, scaled to fit their cell. For an odd power of
+ * two the sheet is turned, so that two portrait pages share one landscape sheet. For landscape the pages are laid
+ * out on the sheet turned by 90 degrees counterclockwise, as CUPS does for {@code orientation-requested}, so the
+ * option must not be passed again for the written document.
+ */
+public final class PdfImposer {
+
+  private PdfImposer() {
+
+  }
+
+  /**
+   * @param pages   one based page numbers in print order, all within the document
+   * @param perPage   number of pages per sheet, a power of two
+   * @param landscape whether to turn the sheet before placing the pages
+   * @return the number of pages of the written document
+   */
+  public static int impose(File srcFile, int[] pages, int perPage, boolean landscape, File dstFile)
+      throws IOException {
+    if (pages.length == 0) {
+      throw new IOException("no pages selected");
+    }
+
+    if (Integer.bitCount(perPage) != 1) {
+      throw new IllegalArgumentException("pages per sheet must be a power of two");
+    }
+
+    try (PDDocument src = Loader.loadPDF(srcFile);
+         PDDocument dst = new PDDocument();
+         OutputStream out = new BufferedOutputStream(Files.newOutputStream(dstFile.toPath()))) {
+
+      if (perPage == 1 && !landscape) {
+        for (int page : pages) {
+          dst.importPage(src.getPage(page - 1));
+        }
+      } else {
+        placePages(src, dst, pages, perPage, landscape);
+      }
+
+      dst.save(out);
+      return dst.getNumberOfPages();
+    }
+  }
+
+  private static void placePages(PDDocument src, PDDocument dst, int[] pages, int perPage, boolean landscape)
+      throws IOException {
+    LayerUtility layerUtility = new LayerUtility(dst);
+
+    PDRectangle first = displayedSize(src.getPage(pages[0] - 1));
+    boolean turn = Integer.numberOfTrailingZeros(perPage) % 2 == 1;
+    PDRectangle media = turn ? new PDRectangle(first.getHeight(), first.getWidth()) : first;
+    // pages are placed on the sheet as seen after turning it
+    PDRectangle sheet = landscape ? new PDRectangle(media.getHeight(), media.getWidth()) : media;
+
+    int larger = 1 << (Integer.numberOfTrailingZeros(perPage) + 1) / 2;
+    int smaller = perPage / larger;
+    int columns = sheet.getWidth() >= sheet.getHeight() ? larger : smaller;
+    int rows = perPage / columns;
+
+    float cellWidth = sheet.getWidth() / columns;
+    float cellHeight = sheet.getHeight() / rows;
+
+    PDPageContentStream content = null;
+    try {
+      for (int i = 0; i < pages.length; i++) {
+        int cell = i % perPage;
+        if (cell == 0) {
+          if (content != null) {
+            content.close();
+          }
+          PDPage target = new PDPage(media);
+          dst.addPage(target);
+          content = new PDPageContentStream(dst, target);
+          if (landscape) {
+            // turn counterclockwise, the bottom edge of the sheet becomes the right edge of the media
+            content.transform(new Matrix(0, 1, -1, 0, media.getWidth(), 0));
+          }
+        }
+
+        PDPage page = src.getPage(pages[i] - 1);
+        PDRectangle box = page.getCropBox();
+        PDRectangle size = displayedSize(page);
+
+        PDFormXObject form = layerUtility.importPageAsForm(src, pages[i] - 1);
+        // rotation and offset are applied below
+        form.setMatrix(new AffineTransform());
+        form.setBBox(box);
+
+        float scale = Math.min(cellWidth / size.getWidth(), cellHeight / size.getHeight());
+        float x = (cell % columns) * cellWidth + (cellWidth - size.getWidth() * scale) / 2;
+        float y = sheet.getHeight() - (cell / columns + 1) * cellHeight + (cellHeight - size.getHeight() * scale) / 2;
+
+        content.saveGraphicsState();
+        content.transform(Matrix.getTranslateInstance(x, y));
+        content.transform(Matrix.getScaleInstance(scale, scale));
+        content.transform(rotation(page.getRotation(), box.getWidth(), box.getHeight()));
+        content.transform(Matrix.getTranslateInstance(-box.getLowerLeftX(), -box.getLowerLeftY()));
+        content.drawForm(form);
+        content.restoreGraphicsState();
+      }
+    } finally {
+      if (content != null) {
+        content.close();
+      }
+    }
+  }
+
+  /**
+   * @return the transformation turning the page clockwise by its rotation, keeping it in the positive quadrant
+   */
+  private static Matrix rotation(int rotation, float width, float height) {
+    return switch ((rotation % 360 + 360) % 360) {
+      case 90 -> new Matrix(0, -1, 1, 0, 0, width);
+      case 180 -> new Matrix(-1, 0, 0, -1, width, height);
+      case 270 -> new Matrix(0, 1, -1, 0, height, 0);
+      default -> new Matrix();
+    };
+  }
+
+  private static PDRectangle displayedSize(PDPage page) {
+    PDRectangle box = page.getCropBox();
+    return page.getRotation() % 180 == 0 ? new PDRectangle(box.getWidth(), box.getHeight()) :
+        new PDRectangle(box.getHeight(), box.getWidth());
+  }
+}
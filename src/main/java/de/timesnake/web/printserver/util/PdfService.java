@@ -10,27 +10,72 @@ import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfWriter;
 import de.timesnake.web.printserver.Application;
-import de.timesnake.web.printserver.data.entity.PrintJob;
+import de.timesnake.web.printserver.data.Money;
+import de.timesnake.web.printserver.data.entity.UserBalance;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.text.DecimalFormat;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class PdfService {
 
-  public String writeUserTotals(Collection<PrintJob> printJobs) throws IOException, DocumentException {
+  private final ImageConverter imageConverter;
+  // imposing loads whole documents, limited like the image conversion
+  private final Semaphore impositionPermits;
+
+  private final Timer conversionSuccess;
+  private final Timer conversionFailure;
+  private final Timer probeSuccess;
+  private final Timer probeFailure;
+
+  public PdfService(Config config, MeterRegistry registry) {
+    this.imageConverter = new ImageConverter(config.getImageDpi(), config.getConversionThreads());
+    this.impositionPermits = new Semaphore(config.getConversionThreads(), true);
+    this.conversionSuccess = timer(registry, "print.conversion", "Time to convert images to a pdf",
+        PrintMetrics.OUTCOME_SUCCESS);
+    this.conversionFailure = timer(registry, "print.conversion", "Time to convert images to a pdf",
+        PrintMetrics.OUTCOME_FAILURE);
+    this.probeSuccess = timer(registry, "print.probe", "Time to read pages and page sizes of a pdf",
+        PrintMetrics.OUTCOME_SUCCESS);
+    this.probeFailure = timer(registry, "print.probe", "Time to read pages and page sizes of a pdf",
+        PrintMetrics.OUTCOME_FAILURE);
+  }
+
+  private static Timer timer(MeterRegistry registry, String name, String description, String outcome) {
+    return Timer.builder(name)
+        .description(description)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.imageConverter.shutdown();
+  }
+
+  public String writeUserTotals(Collection<UserBalance> balances) throws IOException, DocumentException {
     String fileName = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "_user_totals.pdf";
 
     new File("api/users/totals/" + fileName).createNewFile();
@@ -55,15 +100,12 @@ public class PdfService {
 
     table.completeRow();
 
-    printJobs.stream().collect(Collectors.groupingBy(PrintJob::getUser)).forEach((user, userJobs) -> {
-          int printedPages = userJobs.stream().mapToInt(PrintJob::getPrintedPages).sum();
-          double costs = userJobs.stream().mapToDouble(PrintJob::getCosts).sum();
-
-          table.addCell(createCell(user.getName()));
-          table.addCell(createCell(String.valueOf(printedPages)));
-          table.addCell(createCell(new DecimalFormat("0.00").format(costs)));
-          table.completeRow();
-        });
+    for (UserBalance balance : balances) {
+      table.addCell(createCell(balance.getUser().getName()));
+      table.addCell(createCell(String.valueOf(balance.getPages())));
+      table.addCell(createCell(Money.ofCents(balance.getCosts()).format()));
+      table.completeRow();
+    }
 
     document.add(table);
     document.close();
@@ -72,20 +114,102 @@ public class PdfService {
     return fileName;
   }
 
-  public File convertJpg2Pdf(File srcFile) throws DocumentException, IOException {
-    File dstFile = new File(srcFile.getPath() + ".pdf");
+  /**
+   * Converts the images into one pdf next to the first image, with one page per image or tiff page.
+   */
+  public File convertImages2Pdf(List<File> srcFiles) throws DocumentException, IOException {
+    File dstFile = new File(srcFiles.get(0).getPath() + ".pdf");
+    long start = System.nanoTime();
+    boolean success = false;
+    try {
+      this.imageConverter.convert(srcFiles, dstFile);
+      success = true;
+    } finally {
+      (success ? this.conversionSuccess : this.conversionFailure).record(System.nanoTime() - start,
+          TimeUnit.NANOSECONDS);
+    }
+    return dstFile;
+  }
 
-    Document document = new Document();
-    FileOutputStream fos = new FileOutputStream(dstFile);
+  /**
+   * Writes the selected pages into a new pdf, placing {@code perPage} pages on each sheet, turned for landscape.
+   * Waits while as many documents as there are conversion threads are imposed.
+   *
+   * @return the number of pages written
+   */
+  public int impose(File srcFile, int[] pages, int perPage, boolean landscape, File dstFile) throws IOException {
+    try {
+      this.impositionPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for imposition permit");
+    }
+
+    try {
+      return PdfImposer.impose(srcFile, pages, perPage, landscape, dstFile);
+    } finally {
+      this.impositionPermits.release();
+    }
+  }
 
-    PdfWriter writer = PdfWriter.getInstance(document, fos);
-    writer.open();
-    document.open();
-    document.add(Image.getInstance(srcFile.getName()));
-    document.close();
-    writer.close();
+  public ImageConverter getImageConverter() {
+    return imageConverter;
+  }
 
-    return dstFile;
+  public DocumentMetadata probe(File file) throws IOException {
+    return this.probe(file, null);
+  }
+
+  /**
+   * @param hash SHA-256 of the file if already known, otherwise it is computed
+   */
+  public DocumentMetadata probe(File file, String hash) throws IOException {
+    long start = System.nanoTime();
+    boolean success = false;
+    try {
+      DocumentMetadata metadata = readMetadata(file, hash);
+      success = true;
+      return metadata;
+    } finally {
+      (success ? this.probeSuccess : this.probeFailure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static DocumentMetadata readMetadata(File file, String hash) throws IOException {
+    if (hash == null) {
+      hash = hash(file);
+    }
+
+    try (PDDocument doc = Loader.loadPDF(file)) {
+      List<DocumentMetadata.PageSize> pageSizes = new ArrayList<>(doc.getNumberOfPages());
+      for (PDPage page : doc.getPages()) {
+        PDRectangle box = page.getMediaBox();
+        if (page.getRotation() % 180 == 0) {
+          pageSizes.add(new DocumentMetadata.PageSize(box.getWidth(), box.getHeight()));
+        } else {
+          pageSizes.add(new DocumentMetadata.PageSize(box.getHeight(), box.getWidth()));
+        }
+      }
+      return new DocumentMetadata(doc.getNumberOfPages(), pageSizes, doc.isEncrypted(), hash, file.length());
+    }
+  }
+
+  public static String hash(File file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+
+    try (InputStream in = new FileInputStream(file)) {
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
   }
 
   private static PdfPCell createCell(String value) {
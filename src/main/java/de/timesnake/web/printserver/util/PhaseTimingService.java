@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.data.service.PrintJobPhases;
+import de.timesnake.web.printserver.data.service.PrintJobRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Percentiles of the phase durations of completed print jobs per printer. A phase lasts from the previous phase
+ * that was reached, or the start of the upload, to its own timestamp. Jobs that skipped a phase, like reprints
+ * without upload or pdfs without conversion, are not counted for it.
+ */
+@Service
+public class PhaseTimingService {
+
+  private final PrintJobRepository printJobRepository;
+
+  public PhaseTimingService(PrintJobRepository printJobRepository) {
+    this.printJobRepository = printJobRepository;
+  }
+
+  /**
+   * @return one entry per printer and phase, ordered by printer name and phase
+   */
+  public List<PhaseTimings> getTimings(Duration window) {
+    Map<String, Samples[]> samplesByPrinter = new TreeMap<>();
+    Phase[] phases = Phase.values();
+
+    for (PrintJobPhases job : this.printJobRepository.findPhasesSince(LocalDateTime.now().minus(window))) {
+      Samples[] samples = samplesByPrinter.computeIfAbsent(job.getPrinterName(), n -> new Samples[phases.length]);
+      int previous = 0;
+      for (Phase phase : phases) {
+        Integer timestamp = phase.getTimestamp(job);
+        if (timestamp == null) {
+          continue;
+        }
+
+        if (samples[phase.ordinal()] == null) {
+          samples[phase.ordinal()] = new Samples();
+        }
+        samples[phase.ordinal()].add(Math.max(timestamp - previous, 0));
+        previous = timestamp;
+      }
+    }
+
+    List<PhaseTimings> timings = new ArrayList<>();
+    samplesByPrinter.forEach((printer, samples) -> {
+      for (Phase phase : phases) {
+        Samples phaseSamples = samples[phase.ordinal()];
+        if (phaseSamples != null) {
+          timings.add(phaseSamples.summarize(printer, phase));
+        }
+      }
+    });
+    return timings;
+  }
+
+  public enum Phase {
+    UPLOAD("Upload", PrintJobPhases::getUploadedMs),
+    CONVERSION("Conversion", PrintJobPhases::getConvertedMs),
+    PROBE("Probe", PrintJobPhases::getProbedMs),
+    SUBMISSION("Options and submission", PrintJobPhases::getSubmittedMs),
+    CUPS_QUEUE("CUPS queue", PrintJobPhases::getFirstPageMs),
+    PRINTING("Printing", PrintJobPhases::getCompletedMs);
+
+    private final String name;
+    private final Function<PrintJobPhases, Integer> timestamp;
+
+    Phase(String name, Function<PrintJobPhases, Integer> timestamp) {
+      this.name = name;
+      this.timestamp = timestamp;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    private Integer getTimestamp(PrintJobPhases job) {
+      return this.timestamp.apply(job);
+    }
+  }
+
+  /**
+   * Durations of one phase at one printer in milliseconds.
+   */
+  public record PhaseTimings(String printer, Phase phase, int jobs, int p50, int p90, int p99, int max) {
+
+  }
+
+  private static class Samples {
+
+    private int[] values = new int[16];
+    private int size = 0;
+
+    private void add(int value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+      this.values[this.size++] = value;
+    }
+
+    private PhaseTimings summarize(String printer, Phase phase) {
+      Arrays.sort(this.values, 0, this.size);
+      return new PhaseTimings(printer, phase, this.size, this.percentile(50), this.percentile(90),
+          this.percentile(99), this.values[this.size - 1]);
+    }
+
+    /**
+     * @return the nearest rank percentile, the values must be sorted
+     */
+    private int percentile(int percent) {
+      int rank = (int) Math.ceil(percent / 100d * this.size);
+      return this.values[Math.max(rank, 1) - 1];
+    }
+  }
+}
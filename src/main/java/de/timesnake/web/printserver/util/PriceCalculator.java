@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.data.Role;
+import de.timesnake.web.printserver.data.entity.Printer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Price rules of one printer compiled into primitive arrays. Rates are kept in hundredths of a cent per printed
+ * page, so prices like 2.5 cents per page stay exact, and totals are rounded to cents once at the end.
+ * <p>
+ * Volume tiers are graduated: pages from a tier threshold on are charged with the percentage of the tier, pages
+ * below with the percentage of the previous tier. Role percentages are applied on top, a user with several roles
+ * gets the lowest one. Instances are immutable and can be shared between threads.
+ */
+public final class PriceCalculator {
+
+  private static final long RATE_UNITS_PER_CENT = 100;
+
+  /**
+   * @return the number of printed sheet sides, as counted by the page log
+   */
+  public static int printedPages(int selectedPages, PrintRequest.PrintSides sides, PrintRequest.PrintPerPage perPage,
+                                 int copies) {
+    return sides.numberOfPages(perPage.numberOfPages(selectedPages)) * copies;
+  }
+
+  public static PriceCalculator compile(Printer printer, Config config) {
+    String cupsName = printer.getCupsName();
+
+    int[] tierFrom;
+    int[] tierPercent;
+    String tiers = config.getPriceTiers(cupsName);
+    if (tiers == null || tiers.isBlank()) {
+      tierFrom = new int[]{0};
+      tierPercent = new int[]{100};
+    } else {
+      String[] entries = tiers.replace(" ", "").split(",");
+      long[] sorted = new long[entries.length];
+      for (int i = 0; i < entries.length; i++) {
+        String[] entry = entries[i].split(":", 2);
+        int from = Integer.parseInt(entry[0]);
+        int percent = Integer.parseInt(entry[1]);
+        if (from < 0 || percent < 0) {
+          throw new IllegalArgumentException("invalid price tier '" + entries[i] + "' of printer '" + cupsName + "'");
+        }
+        sorted[i] = (long) from << 32 | percent;
+      }
+      Arrays.sort(sorted);
+
+      boolean base = (sorted[0] >>> 32) == 0;
+      tierFrom = new int[sorted.length + (base ? 0 : 1)];
+      tierPercent = new int[tierFrom.length];
+      int offset = 0;
+      if (!base) {
+        tierFrom[0] = 0;
+        tierPercent[0] = 100;
+        offset = 1;
+      }
+      for (int i = 0; i < sorted.length; i++) {
+        tierFrom[i + offset] = (int) (sorted[i] >>> 32);
+        tierPercent[i + offset] = (int) sorted[i];
+      }
+    }
+
+    Role[] roles = Role.values();
+    int[] rolePercent = new int[roles.length];
+    for (Role role : roles) {
+      rolePercent[role.ordinal()] = config.getPriceRolePercent(role.name(), cupsName);
+    }
+
+    return new PriceCalculator(toRate(printer.getPriceOneSided()), toRate(printer.getPriceTwoSided()), tierFrom,
+        tierPercent, rolePercent);
+  }
+
+  private static long toRate(BigDecimal price) {
+    return price != null ? price.movePointRight(4).setScale(0, RoundingMode.HALF_UP).longValueExact() : 0;
+  }
+
+  private final long oneSidedRate;
+  private final long twoSidedRate;
+  private final int[] tierFrom;
+  private final int[] tierPercent;
+  private final int[] rolePercent;
+
+  PriceCalculator(long oneSidedRate, long twoSidedRate, int[] tierFrom, int[] tierPercent, int[] rolePercent) {
+    this.oneSidedRate = oneSidedRate;
+    this.twoSidedRate = twoSidedRate;
+    this.tierFrom = tierFrom;
+    this.tierPercent = tierPercent;
+    this.rolePercent = rolePercent;
+  }
+
+  /**
+   * @return the percentage applied for a user with the given roles
+   */
+  public int getRolePercent(Set<Role> roles) {
+    if (roles == null || roles.isEmpty()) {
+      return 100;
+    }
+
+    int percent = Integer.MAX_VALUE;
+    for (Role role : roles) {
+      percent = Math.min(percent, this.rolePercent[role.ordinal()]);
+    }
+    return percent;
+  }
+
+  /**
+   * @param rolePercent as returned by {@link #getRolePercent(Set)}
+   * @return the price in cents
+   */
+  public long price(int printedPages, PrintRequest.PrintSides sides, int rolePercent) {
+    return this.price(printedPages, sides != PrintRequest.PrintSides.ONE_SIDED, rolePercent);
+  }
+
+  /**
+   * @param rolePercent as returned by {@link #getRolePercent(Set)}
+   * @return the price in cents
+   */
+  public long price(int printedPages, boolean duplex, int rolePercent) {
+    long rate = duplex ? this.twoSidedRate : this.oneSidedRate;
+
+    // rate units times percent
+    long total = 0;
+    for (int i = 0; i < this.tierFrom.length && this.tierFrom[i] < printedPages; i++) {
+      int end = i + 1 < this.tierFrom.length ? Math.min(this.tierFrom[i + 1], printedPages) : printedPages;
+      total += (end - this.tierFrom[i]) * rate * this.tierPercent[i];
+    }
+
+    long units = (total + 50) / 100;
+    return (units * rolePercent + RATE_UNITS_PER_CENT * 50) / (RATE_UNITS_PER_CENT * 100);
+  }
+
+  public long getOneSidedRate() {
+    return oneSidedRate;
+  }
+
+  public long getTwoSidedRate() {
+    return twoSidedRate;
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+public interface PrintBackend {
+
+  /**
+   * Submits the converted document of the request to the CUPS queue of its printer.
+   *
+   * @return the id of the created CUPS job or {@code null} if CUPS did not report one
+   */
+  CupsJobId submit(PrintRequest request) throws IOException;
+
+  /**
+   * Queries the states of all given jobs with a single request.
+   *
+   * @return the states by CUPS job id, jobs CUPS no longer knows, like jobs purged from its history, are reported
+   * as completed
+   */
+  Map<Integer, CupsJobState> queryJobStates(Collection<CupsJobId> jobs) throws IOException;
+
+  void cancel(CupsJobId job, String user) throws IOException;
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Handle of a set of print requests processed together. Results become available in the order the jobs finish,
+ * either one by one via {@link #next()}/{@link #poll(long, TimeUnit)} or all at once via {@link #getResults()}.
+ * Jobs wait in the queue of their printer until a worker slot is free and are rejected if the queue is full.
+ * Jobs still running when the batch deadline passes are canceled.
+ */
+public class PrintBatch {
+
+  private final PrintService printService;
+  private final PrintListener listener;
+  private final Duration timeout;
+
+  private final Map<PrintRequest, CompletableFuture<PrintResult>> jobs = new LinkedHashMap<>();
+  private final BlockingQueue<PrintResult> completed = new LinkedBlockingQueue<>();
+  private final List<PrintResult> results = new ArrayList<>();
+  private final CompletableFuture<List<PrintResult>> done = new CompletableFuture<>();
+
+  private int taken = 0;
+
+  PrintBatch(PrintService printService, List<PrintRequest> requests, PrintListener listener, Duration timeout) {
+    this.printService = printService;
+    this.listener = listener;
+    this.timeout = timeout;
+    for (PrintRequest request : requests) {
+      this.jobs.put(request, new CompletableFuture<>());
+    }
+  }
+
+  void start() {
+    Executor executor = this.printService.getExecutorService();
+
+    if (this.jobs.isEmpty()) {
+      this.done.complete(List.of());
+      return;
+    }
+
+    this.jobs.forEach((request, job) -> {
+      job.thenAccept(this::onFinished);
+
+      request.status = PrintRequest.PrintStatus.QUEUED;
+      boolean queued = this.printService.getDispatcher().dispatch(request.getPrinter(), () ->
+          CompletableFuture.supplyAsync(() -> request.start(this.listener), executor)
+              .thenCompose(res -> res.hasError() ? CompletableFuture.completedFuture(res) : res.awaitCompletion())
+              .whenComplete((res, e) -> {
+                if (e != null) {
+                  Application.getLogger().warning("Exception while waiting for result of file '" + request.getName()
+                      + "' from user '" + request.getUser().getUsername() + "': " + e.getMessage());
+                  PrintResult failed = request.cancel(PrintResult.ErrorType.EXECUTION_EXCEPTION);
+                  if (job.complete(failed)) {
+                    this.listener.onError(failed);
+                  }
+                  return;
+                }
+                job.complete(res);
+              }));
+
+      if (!queued) {
+        Application.getLogger().warning("Queue of printer '" + request.getPrinter().getName() + "' is full, " +
+            "rejected file '" + request.getName() + "' from user '" + request.getUser().getUsername() + "'");
+        PrintResult rejected = request.cancel(PrintResult.ErrorType.QUEUE_FULL);
+        if (job.complete(rejected)) {
+          this.listener.onError(rejected);
+        }
+      }
+    });
+
+    CompletableFuture.delayedExecutor(this.timeout.toMillis(), TimeUnit.MILLISECONDS, executor).execute(this::expire);
+  }
+
+  private void onFinished(PrintResult result) {
+    result.getRequest().release();
+
+    synchronized (this.results) {
+      this.results.add(result);
+      this.completed.add(result);
+      if (this.results.size() == this.jobs.size()) {
+        this.done.complete(List.copyOf(this.results));
+      }
+    }
+  }
+
+  private void expire() {
+    if (this.done.isDone()) {
+      return;
+    }
+
+    this.jobs.forEach((request, job) -> {
+      if (job.isDone()) {
+        return;
+      }
+
+      Application.getLogger().warning("Batch deadline exceeded for file '" + request.getName()
+          + "' from user '" + request.getUser().getUsername() + "', canceling job");
+      PrintResult result = request.cancel(PrintResult.ErrorType.TIME_OUT);
+      if (job.complete(result)) {
+        this.listener.onError(result);
+      }
+    });
+  }
+
+  /**
+   * Cancels all jobs that have not finished yet.
+   */
+  public void cancel() {
+    this.jobs.forEach((request, job) -> {
+      if (!job.isDone()) {
+        PrintResult result = request.cancel(PrintResult.ErrorType.CANCELED);
+        if (job.complete(result)) {
+          this.listener.onError(result);
+        }
+      }
+    });
+  }
+
+  /**
+   * Waits for the next finished job.
+   *
+   * @return the result or {@code null} if all results have been taken
+   */
+  public PrintResult next() throws InterruptedException {
+    synchronized (this) {
+      if (this.taken >= this.jobs.size()) {
+        return null;
+      }
+      this.taken++;
+    }
+
+    try {
+      return this.completed.take();
+    } catch (InterruptedException e) {
+      this.giveBack();
+      throw e;
+    }
+  }
+
+  /**
+   * Waits up to the given time for the next finished job.
+   *
+   * @return the result or {@code null} if all results have been taken or none finished in time
+   */
+  public PrintResult poll(long time, TimeUnit unit) throws InterruptedException {
+    synchronized (this) {
+      if (this.taken >= this.jobs.size()) {
+        return null;
+      }
+      this.taken++;
+    }
+
+    PrintResult result;
+    try {
+      result = this.completed.poll(time, unit);
+    } catch (InterruptedException e) {
+      this.giveBack();
+      throw e;
+    }
+
+    if (result == null) {
+      this.giveBack();
+    }
+    return result;
+  }
+
+  /**
+   * Returns a result slot claimed by a caller that got no result.
+   */
+  private synchronized void giveBack() {
+    this.taken--;
+  }
+
+  public CompletableFuture<List<PrintResult>> getResults() {
+    return this.done;
+  }
+
+  public boolean isDone() {
+    return this.done.isDone();
+  }
+
+  public int size() {
+    return this.jobs.size();
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.data.entity.Printer;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Service
+public class PrintDispatcher {
+
+  private final Config config;
+
+  private final Map<Long, PrinterQueue> queues = new ConcurrentHashMap<>();
+
+  public PrintDispatcher(Config config) {
+    this.config = config;
+  }
+
+  public PrinterQueue getQueue(Printer printer) {
+    return this.queues.computeIfAbsent(printer.getId(), id -> new PrinterQueue(printer.getName(),
+        this.config.getPrinterConcurrency(printer.getCupsName()),
+        this.config.getPrinterQueueCapacity(printer.getCupsName())));
+  }
+
+  public Collection<PrinterQueue> getQueues() {
+    return this.queues.values();
+  }
+
+  /**
+   * @return {@code false} if the queue of the printer is full
+   */
+  public boolean dispatch(Printer printer, Supplier<? extends CompletableFuture<?>> job) {
+    return this.getQueue(printer).offer(job);
+  }
+}
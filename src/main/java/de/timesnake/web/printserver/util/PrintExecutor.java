@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the lifecycle of print jobs. Concurrency is limited by explicit permits for CUPS submissions and job
+ * completions rather than by the number of threads, so blocked jobs never starve new ones.
+ */
+@Service
+public class PrintExecutor {
+
+  public static final String MODE_VIRTUAL = "virtual";
+  public static final String MODE_PLATFORM = "platform";
+
+  private final ExecutorService executorService;
+  private final boolean virtual;
+
+  private final int maxSubmissions;
+  private final int maxCompletions;
+  private final Semaphore submissionPermits;
+  private final Semaphore completionPermits;
+
+  @Autowired
+  public PrintExecutor(Config config) {
+    this(config.getExecutionMode(), config.getMaxConcurrentSubmissions(), config.getMaxConcurrentCompletions());
+  }
+
+  PrintExecutor(String mode, int maxSubmissions, int maxCompletions) {
+    ExecutorService virtualExecutor = mode.equals(MODE_VIRTUAL) ? createVirtualExecutor() : null;
+    this.virtual = virtualExecutor != null;
+    this.executorService = this.virtual ? virtualExecutor : createPlatformExecutor();
+    this.maxSubmissions = maxSubmissions;
+    this.maxCompletions = maxCompletions;
+    this.submissionPermits = new Semaphore(maxSubmissions, true);
+    this.completionPermits = new Semaphore(maxCompletions, true);
+  }
+
+  private static ExecutorService createVirtualExecutor() {
+    try {
+      // resolved at runtime, the project is still compiled for Java 17
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      Application.getLogger().warning("Virtual threads are not supported by this runtime, using platform threads");
+      return null;
+    }
+  }
+
+  private static ExecutorService createPlatformExecutor() {
+    AtomicInteger threadIds = new AtomicInteger();
+    return Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "print-job-" + threadIds.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.executorService.shutdownNow();
+  }
+
+  public ExecutorService getExecutorService() {
+    return executorService;
+  }
+
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  public <T> T submit(IOSupplier<T> submission) throws IOException {
+    try {
+      this.submissionPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for submission permit");
+    }
+
+    try {
+      return submission.get();
+    } finally {
+      this.submissionPermits.release();
+    }
+  }
+
+  public void complete(Runnable completion) {
+    this.completionPermits.acquireUninterruptibly();
+    try {
+      completion.run();
+    } finally {
+      this.completionPermits.release();
+    }
+  }
+
+  public int getQueuedSubmissions() {
+    return this.submissionPermits.getQueueLength();
+  }
+
+  public int getQueuedCompletions() {
+    return this.completionPermits.getQueueLength();
+  }
+
+  public int getActiveSubmissions() {
+    return this.maxSubmissions - this.submissionPermits.availablePermits();
+  }
+
+  public int getActiveCompletions() {
+    return this.maxCompletions - this.completionPermits.availablePermits();
+  }
+
+  @FunctionalInterface
+  public interface IOSupplier<T> {
+
+    T get() throws IOException;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.data.entity.Printer;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the print job lifecycle, tagged by the CUPS name of the printer and the outcome, and
+ * gauges of the executors, queues and pools involved. Meters of a printer are created with its first job and
+ * cached, so recording only looks up the printer by name and never allocates.
+ */
+@Service
+public class PrintMetrics {
+
+  public static final String OUTCOME_SUCCESS = "success";
+  public static final String OUTCOME_FAILURE = "failure";
+  public static final String OUTCOME_COMPLETED = "completed";
+
+  private final MeterRegistry registry;
+  private final PrintDispatcher dispatcher;
+
+  private final Map<String, PrinterMeters> printers = new ConcurrentHashMap<>();
+
+  public PrintMetrics(MeterRegistry registry, PrintExecutor printExecutor, PrintDispatcher dispatcher,
+                      PdfService pdfService, SpoolService spoolService, DocumentStore documentStore,
+                      CupsJobTracker jobTracker, DatabasePoolMetrics databasePoolMetrics) {
+    this.registry = registry;
+    this.dispatcher = dispatcher;
+
+    new ExecutorServiceMetrics(printExecutor.getExecutorService(), "print-job", Tags.empty()).bindTo(registry);
+    Gauge.builder("print.submissions.queued", printExecutor, PrintExecutor::getQueuedSubmissions)
+        .description("Jobs waiting for a submission permit")
+        .register(registry);
+    Gauge.builder("print.submissions.active", printExecutor, PrintExecutor::getActiveSubmissions)
+        .description("Jobs being submitted to CUPS")
+        .register(registry);
+    Gauge.builder("print.completions.queued", printExecutor, PrintExecutor::getQueuedCompletions)
+        .description("Completed jobs waiting for a completion permit")
+        .register(registry);
+    Gauge.builder("print.completions.active", printExecutor, PrintExecutor::getActiveCompletions)
+        .description("Completed jobs being saved")
+        .register(registry);
+    Gauge.builder("print.jobs.tracked", jobTracker, CupsJobTracker::getTrackedJobs)
+        .description("Jobs waiting for CUPS to finish")
+        .register(registry);
+
+    new ExecutorServiceMetrics(pdfService.getImageConverter().getExecutor(), "image-converter", Tags.empty())
+        .bindTo(registry);
+
+    Gauge.builder("print.spool.used", spoolService, SpoolService::getUsed)
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("print.spool.quota", spoolService, SpoolService::getQuota)
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("print.spool.uploads", spoolService, SpoolService::getActiveUploads)
+        .description("Uploads in progress")
+        .register(registry);
+    Gauge.builder("print.documents", documentStore, DocumentStore::getSize)
+        .description("Documents in the document store")
+        .register(registry);
+
+    Gauge.builder("print.db.connections.active", databasePoolMetrics, DatabasePoolMetrics::getActiveConnections)
+        .register(registry);
+    Gauge.builder("print.db.connections.idle", databasePoolMetrics, DatabasePoolMetrics::getIdleConnections)
+        .register(registry);
+    Gauge.builder("print.db.connections.pending", databasePoolMetrics, DatabasePoolMetrics::getPendingThreads)
+        .description("Threads waiting for a connection")
+        .register(registry);
+    FunctionCounter.builder("print.db.connections.acquired", databasePoolMetrics,
+            DatabasePoolMetrics::getAcquiredConnections)
+        .register(registry);
+    FunctionCounter.builder("print.db.connections.timeouts", databasePoolMetrics,
+            DatabasePoolMetrics::getConnectionTimeouts)
+        .register(registry);
+    FunctionCounter.builder("print.db.connections.wait", databasePoolMetrics,
+            m -> m.getTotalWaitTime().toNanos() / 1e9)
+        .baseUnit("seconds")
+        .description("Total time spent waiting for a connection")
+        .register(registry);
+  }
+
+  public PrinterMeters get(Printer printer) {
+    PrinterMeters meters = this.printers.get(printer.getCupsName());
+    if (meters == null) {
+      meters = this.printers.computeIfAbsent(printer.getCupsName(), name -> new PrinterMeters(printer));
+    }
+    return meters;
+  }
+
+  /**
+   * Meters of one printer.
+   */
+  public class PrinterMeters {
+
+    private final Timer submitSuccess;
+    private final Timer submitFailure;
+    private final Timer firstPage;
+    private final Timer completionSuccess;
+    private final Timer completionFailure;
+    private final Counter completed;
+    private final Counter[] errors;
+    private final Counter pages;
+    private final Counter costs;
+
+    private PrinterMeters(Printer printer) {
+      Tags tags = Tags.of("printer", printer.getCupsName());
+
+      this.submitSuccess = timer("print.submit", "Time to hand a job to CUPS", tags, OUTCOME_SUCCESS);
+      this.submitFailure = timer("print.submit", "Time to hand a job to CUPS", tags, OUTCOME_FAILURE);
+      this.firstPage = Timer.builder("print.first.page")
+          .description("Time from submission to the first page in the page_log")
+          .tags(tags)
+          .publishPercentileHistogram()
+          .register(registry);
+      this.completionSuccess = timer("print.completion", "Time from submission to completion", tags,
+          OUTCOME_SUCCESS);
+      this.completionFailure = timer("print.completion", "Time from submission to completion", tags,
+          OUTCOME_FAILURE);
+
+      this.completed = jobs(tags, OUTCOME_COMPLETED);
+      PrintResult.ErrorType[] errorTypes = PrintResult.ErrorType.values();
+      this.errors = new Counter[errorTypes.length];
+      for (PrintResult.ErrorType errorType : errorTypes) {
+        this.errors[errorType.ordinal()] = jobs(tags, errorType.name().toLowerCase(Locale.ROOT));
+      }
+
+      this.pages = Counter.builder("print.pages")
+          .description("Printed pages")
+          .tags(tags)
+          .register(registry);
+      this.costs = Counter.builder("print.costs")
+          .description("Costs of printed jobs")
+          .baseUnit("cents")
+          .tags(tags)
+          .register(registry);
+
+      Gauge.builder("print.queue.waiting", dispatcher.getQueue(printer), PrinterQueue::getQueueDepth)
+          .tags(tags)
+          .register(registry);
+      Gauge.builder("print.queue.running", dispatcher.getQueue(printer), PrinterQueue::getRunning)
+          .tags(tags)
+          .register(registry);
+      FunctionCounter.builder("print.queue.rejected", dispatcher.getQueue(printer), PrinterQueue::getRejected)
+          .tags(tags)
+          .register(registry);
+    }
+
+    private Timer timer(String name, String description, Tags tags, String outcome) {
+      return Timer.builder(name)
+          .description(description)
+          .tags(tags)
+          .tag("outcome", outcome)
+          .publishPercentileHistogram()
+          .register(registry);
+    }
+
+    private Counter jobs(Tags tags, String outcome) {
+      return Counter.builder("print.jobs")
+          .description("Finished jobs by outcome")
+          .tags(tags)
+          .tag("outcome", outcome)
+          .register(registry);
+    }
+
+    public void recordSubmit(long startNanos, boolean success) {
+      (success ? this.submitSuccess : this.submitFailure).record(System.nanoTime() - startNanos,
+          TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFirstPage(long submittedNanos, long firstPageNanos) {
+      // CUPS may log the first page before the submission returned
+      this.firstPage.record(Math.max(firstPageNanos - submittedNanos, 0), TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCompletion(long submittedNanos, boolean success) {
+      (success ? this.completionSuccess : this.completionFailure).record(System.nanoTime() - submittedNanos,
+          TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCompleted(int printedPages, long costs) {
+      this.completed.increment();
+      this.pages.increment(printedPages);
+      this.costs.increment(costs);
+    }
+
+    public void recordError(PrintResult.ErrorType errorType) {
+      this.errors[errorType.ordinal()].increment();
+    }
+  }
+}
@@ -2,22 +2,21 @@ package de.timesnake.web.printserver.util;
 
 import com.itextpdf.text.DocumentException;
 import de.timesnake.web.printserver.Application;
+import de.timesnake.web.printserver.data.Money;
 import de.timesnake.web.printserver.data.entity.PrintJob;
 import de.timesnake.web.printserver.data.entity.Printer;
 import de.timesnake.web.printserver.data.entity.User;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Objects;
-import java.util.function.Function;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
 public class PrintRequest {
@@ -26,7 +25,13 @@ public class PrintRequest {
 
   private final PrintJob job;
   private final File srcFile;
+  private final List<SpoolFile> spoolFiles;
+  private final String hash;
   private File resFile;
+  private File printFile;
+  // bytes of the converted and the imposed file charged against the spool quota
+  private long resFileCharge;
+  private long printFileCharge;
   private String name;
   private User user;
   private Printer printer;
@@ -36,19 +41,57 @@ public class PrintRequest {
   private PageRange pageRange;
   private int copies;
 
+  private DocumentStore.Document document;
+  private DocumentMetadata metadata;
+
   private Integer documentPages;
   private Integer selectedPages;
   private Integer printedPages;
-  private Double price;
+  private Money price;
+
+  // System.nanoTime() of the phases of the request, 0 if a phase was skipped
+  private final long startedNanos;
+  private final long uploadedNanos;
+  private long convertedNanos;
+  private long probedNanos;
+  private long submittedNanos;
+  long firstPageNanos;
+  long completedNanos;
 
   PrintResult result;
 
   PrintStatus status;
 
   public PrintRequest(PrintService printService, File srcFile) {
+    this(printService, srcFile, List.of(), null, null);
+  }
+
+  public PrintRequest(PrintService printService, SpoolFile spoolFile) {
+    this(printService, spoolFile.getFile(), List.of(spoolFile), null, spoolFile.getName());
+  }
+
+  /**
+   * Creates a request printing the given images as one document.
+   */
+  public PrintRequest(PrintService printService, List<SpoolFile> images) {
+    this(printService, images.get(0).getFile(), List.copyOf(images), null,
+        images.size() == 1 ? images.get(0).getName() : images.get(0).getName() + " (+" + (images.size() - 1) + ")");
+  }
+
+  public PrintRequest(PrintService printService, DocumentStore.Document document, String name) {
+    this(printService, document.getFile(), List.of(), document, name);
+  }
+
+  private PrintRequest(PrintService printService, File srcFile, List<SpoolFile> spoolFiles,
+                       DocumentStore.Document document, String name) {
     this.printService = printService;
     this.job = new PrintJob();
     this.srcFile = srcFile;
+    this.spoolFiles = spoolFiles;
+    this.hash = spoolHash(spoolFiles);
+    this.startedNanos = spoolFiles.stream().mapToLong(SpoolFile::getOpenedNanos).min().orElse(System.nanoTime());
+    this.uploadedNanos = spoolFiles.stream().mapToLong(SpoolFile::getClosedNanos).max().orElse(0);
+    this.name = name;
     this.printer = printService.getDefaultPrinter();
     this.orientation = PrintOrientation.PORTRAIT;
     this.sides = PrintSides.ONE_SIDED;
@@ -56,20 +99,109 @@ public class PrintRequest {
     this.copies = 1;
     this.status = PrintStatus.CREATED;
 
+    if (document == null && this.hash != null) {
+      document = printService.getDocumentStore().get(this.hash);
+    }
+
+    if (document != null) {
+      this.useDocument(document);
+      return;
+    }
+
     try {
       this.resFile = this.transformFile(srcFile);
+      if (!this.resFile.equals(srcFile)) {
+        this.convertedNanos = System.nanoTime();
+        if (!this.spoolFiles.isEmpty()) {
+          this.resFileCharge = printService.getSpoolService().charge(this.resFile);
+        }
+      }
     } catch (DocumentException | IOException e) {
-      Application.getLogger().warning("Exception while converting file '" + this.getName() + "' of user '" +
-          this.user.getUsername() + "': " + e.getMessage());
+      Application.getLogger().warning("Exception while converting file '" + this.getName() + "': " +
+          e.getMessage());
       this.result = new PrintResult(this, PrintResult.ErrorType.FILE_CONVERT);
+      return;
+    }
+
+    this.probe();
+
+    if (this.hash != null && this.metadata != null) {
+      this.store();
+    }
+  }
+
+  /**
+   * @return the hash of the uploaded content, for combined images a hash over the hashes of all images
+   */
+  private static String spoolHash(List<SpoolFile> spoolFiles) {
+    if (spoolFiles.isEmpty()) {
+      return null;
+    }
+
+    if (spoolFiles.size() == 1) {
+      return spoolFiles.get(0).getHash();
+    }
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (SpoolFile spoolFile : spoolFiles) {
+        digest.update(spoolFile.getHash().getBytes(StandardCharsets.US_ASCII));
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  private void useDocument(DocumentStore.Document document) {
+    this.resFile = document.getFile();
+    this.document = document;
+    this.metadata = document.getMetadata();
+    this.documentPages = this.metadata.getPages();
+  }
+
+  private void store() {
+    File converted = this.resFile;
+    try {
+      this.useDocument(this.printService.getDocumentStore().put(this.hash, converted, this.metadata));
+    } catch (IOException e) {
+      Application.getLogger().warning("Unable to store file '" + this.getName() + "': " + e.getMessage());
+      return;
+    }
+
+    if (!converted.equals(this.srcFile)) {
+      this.printService.getSpoolService().discard(converted, this.resFileCharge);
+      this.resFileCharge = 0;
+    }
+  }
+
+  private void probe() {
+    try {
+      String hash = this.spoolFiles.size() == 1 && this.resFile.equals(this.srcFile) ? this.hash : null;
+      this.metadata = this.printService.getPdfService().probe(this.resFile, hash);
+      this.documentPages = this.metadata.getPages();
+      this.probedNanos = System.nanoTime();
+    } catch (IOException e) {
+      Application.getLogger().warning("Exception while probing file '" + this.resFile.getName() + "': " +
+          e.getMessage());
     }
   }
 
   private File transformFile(File srcFile) throws DocumentException, IOException {
-    String ext = FilenameUtils.getExtension(srcFile.getName());
+    if (this.spoolFiles.size() > 1) {
+      return this.printService.getPdfService().convertImages2Pdf(this.spoolFiles.stream()
+          .map(SpoolFile::getFile).toList());
+    }
+
+    if (this.spoolFiles.size() == 1) {
+      return ImageConverter.isSupported(this.spoolFiles.get(0).getType()) ?
+          this.printService.getPdfService().convertImages2Pdf(List.of(srcFile)) : srcFile;
+    }
+
+    String ext = FilenameUtils.getExtension(srcFile.getName()).toLowerCase();
     return switch (ext) {
       case "pdf" -> srcFile;
-      case "jpg", "jpeg" -> this.printService.getPdfService().convertJpg2Pdf(srcFile);
+      case "jpg", "jpeg", "png", "tif", "tiff" -> this.printService.getPdfService().convertImages2Pdf(List.of(srcFile));
       default -> srcFile;
     };
   }
@@ -123,41 +255,77 @@ public class PrintRequest {
     return this.result != null;
   }
 
-  private String buildCmd() {
-    return "lp " + this.resFile.getAbsolutePath()
-        //+ " -P " + this.printer
-        + this.orientation.getCmd()
-        + this.sides.getCmd()
-        + this.perPage.getCmd()
-        + (this.pageRange != null ? this.pageRange.getCmd() : "")
-        + " -n " + this.copies;
-  }
-
   private void update() {
-    this.updateDocumentPages();
     this.updateSelectedPages();
     this.updatePrintedPages();
     this.updatePrice();
   }
 
-  private void updateDocumentPages() {
-    try {
-      PDDocument doc = Loader.loadPDF(this.getResFile());
-      this.documentPages = doc.getNumberOfPages();
-      doc.close();
-    } catch (IOException e) {
-      Application.getLogger().warning("Exception while getting number of pages for file '" +
-          this.resFile.getName() + "' from user '" + this.user.getUsername() + "': " + e.getMessage());
-    }
-  }
-
   private void updateSelectedPages() {
     if (this.pageRange == null) {
       this.selectedPages = this.documentPages;
       return;
     }
 
-    this.selectedPages = this.pageRange.getPages().size();
+    if (this.documentPages == null) {
+      this.selectedPages = (int) Math.min(this.pageRange.getPageCount(), Integer.MAX_VALUE);
+      return;
+    }
+
+    this.selectedPages = this.pageRange.getPageCount(this.documentPages);
+  }
+
+  /**
+   * @return the selected pages within the document in print order
+   */
+  private int[] getSelectedPageArray() {
+    if (this.pageRange == null) {
+      return IntStream.rangeClosed(1, this.documentPages).toArray();
+    }
+    return this.pageRange.toArray(this.documentPages);
+  }
+
+  /**
+   * Extracts the selected pages and places them on sheets on our side if enabled for the printer, so only the
+   * printed pages are sent to CUPS and the number of printed pages is exact. Falls back to the CUPS options if
+   * this fails.
+   *
+   * @return false if the job was canceled meanwhile, the imposed file is deleted then
+   */
+  private boolean impose() {
+    if (!this.printService.getConfig().isServerSideImposition(this.printer.getCupsName())
+        || this.documentPages == null || (this.pageRange == null && this.perPage == PrintPerPage.ONE)) {
+      return true;
+    }
+
+    SpoolService spoolService = this.printService.getSpoolService();
+    File file = spoolService.createTempPath(".pdf").toFile();
+    int pages;
+    long charge;
+    try {
+      pages = this.printService.getPdfService().impose(this.resFile, this.getSelectedPageArray(),
+          this.perPage.getNumber(), this.orientation == PrintOrientation.LANDSCAPE, file);
+      charge = spoolService.charge(file);
+    } catch (IOException | RuntimeException e) {
+      file.delete();
+      Application.getLogger().warning("Exception while imposing file '" + this.getName() + "', using CUPS options: "
+          + e.getMessage());
+      return true;
+    }
+
+    synchronized (this) {
+      if (this.result.isCanceled()) {
+        // the request may already be released
+        spoolService.discard(file, charge);
+        return false;
+      }
+
+      this.printFileCharge = charge;
+      this.printFile = file;
+      this.printedPages = this.sides.numberOfPages(pages) * this.copies;
+      this.updatePrice();
+    }
+    return true;
   }
 
   private void updatePrintedPages() {
@@ -167,9 +335,7 @@ public class PrintRequest {
       return;
     }
 
-    this.printedPages = this.getSides().numberOfPages().apply(this.selectedPages);
-    this.printedPages = this.getPerPage().numberOfPages().apply(this.printedPages);
-    this.printedPages = this.printedPages * this.getCopies();
+    this.printedPages = PriceCalculator.printedPages(this.selectedPages, this.sides, this.perPage, this.copies);
   }
 
   private void updatePrice() {
@@ -179,67 +345,105 @@ public class PrintRequest {
       return;
     }
 
-    this.price = switch (this.sides) {
-      case ONE_SIDED -> this.printedPages * this.printer.getPriceOneSided();
-      case TWO_SIDED_LONG_EDGE, TWO_SIDED_SHORT_EDGE -> this.printedPages * this.printer.getPriceTwoSided();
-    };
+    PriceCalculator calculator = this.printService.getPrinterCatalog().getPriceCalculator(this.printer);
+    int rolePercent = calculator.getRolePercent(this.user != null ? this.user.getRoles() : null);
+    this.price = Money.ofCents(calculator.price(this.printedPages, this.sides, rolePercent));
   }
 
+  /**
+   * Submits the request to CUPS. The request is only locked while its state changes, so it can be canceled while
+   * waiting for a submission permit or for the backend.
+   */
   public PrintResult start(PrintListener listener) {
-    if (this.result != null) {
-      return this.result;
-    }
+    PrintResult result;
+    synchronized (this) {
+      if (this.result != null) {
+        return this.result;
+      }
 
-    if (this.isRunning()) {
-      this.result = new PrintResult(this, PrintResult.ErrorType.ALREADY_RUNNING);
-      listener.onError(this.result);
-      return this.result;
-    }
+      if (this.printedPages == null || this.printedPages == 0) {
+        this.result = new PrintResult(this, PrintResult.ErrorType.PAGE_COUNT);
+        listener.onError(this.result);
+        return this.result;
+      }
 
-    if (this.printedPages == null) {
-      this.result = new PrintResult(this, PrintResult.ErrorType.PAGE_COUNT);
-      listener.onError(this.result);
-      return this.result;
+      result = this.result = new PrintResult(this);
     }
 
-    String cmd = this.buildCmd();
-
-    this.result = new PrintResult(this);
+    if (!this.impose()) {
+      return result;
+    }
 
+    CupsJobId cupsJob;
     try {
       Application.getLogger().info("Printing file '" + this.getName() + "' from user '" +
           this.getUser().getUsername() + "'");
-      Process process = Runtime.getRuntime().exec(cmd);
+      PrintMetrics.PrinterMeters meters = this.printService.getMetrics().get(this.printer);
+      cupsJob = this.printService.getPrintExecutor().submit(() -> {
+        long start = System.nanoTime();
+        CupsJobId id = null;
+        try {
+          id = this.printService.getPrintBackend().submit(this);
+          return id;
+        } finally {
+          meters.recordSubmit(start, id != null);
+        }
+      });
+      this.submittedNanos = System.nanoTime();
+    } catch (IOException e) {
+      synchronized (this) {
+        if (result.isCanceled()) {
+          return result;
+        }
+        result.setErrorType(PrintResult.ErrorType.EXECUTION_EXCEPTION);
+        this.status = PrintStatus.ERROR;
+      }
+      Application.getLogger().warning("Error while executing job '" + this.getName() + "' of user '" +
+          this.getUser().getUsername() + "': " + e.getMessage());
+      listener.onError(result);
+      return result;
+    }
 
-      BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-      BufferedReader outputReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+    boolean canceled;
+    synchronized (this) {
+      canceled = result.isCanceled();
+      if (cupsJob != null) {
+        result.setCupsJob(cupsJob);
+      }
 
-      String errorResult;
-      while ((errorResult = errorReader.readLine()) != null) {
-        Application.getLogger().warning("Error while executing job '" + this.getName() + "' of user '" +
-            this.getUser().getUsername() + "': " + errorResult);
+      if (!canceled) {
+        if (cupsJob == null) {
+          result.setErrorType(PrintResult.ErrorType.NO_CUPS_ID);
+          this.status = PrintStatus.ERROR;
+        } else {
+          this.status = PrintStatus.PRINTING;
+        }
       }
+    }
 
-      StringBuilder outputResults = new StringBuilder();
-      String outputResult;
-      while ((outputResult = outputReader.readLine()) != null) {
-        outputResults.append(System.lineSeparator()).append(outputResult);
+    if (canceled) {
+      // canceled while submitting, CUPS must not print it anyway
+      if (cupsJob != null) {
+        result.releaseCupsJob();
       }
+      return result;
+    }
 
-      this.status = PrintStatus.PRINTING;
-      listener.onPrinting(this);
+    if (cupsJob == null) {
+      listener.onError(result);
+      return result;
+    }
 
-      this.result.parseOutput(outputResults.toString());
-      this.result.syncUpdates(listener);
+    listener.onPrinting(this);
+    result.syncUpdates(listener);
+    return result;
+  }
 
-    } catch (IOException e) {
-      this.result.errorType = PrintResult.ErrorType.EXECUTION_EXCEPTION;
-      this.status = PrintStatus.ERROR;
-      Application.getLogger().warning("Error while executing job '" + this.getName() + "' of user '" +
-          this.getUser().getUsername() + "': " + e.getMessage());
-      listener.onError(this.result);
+  synchronized PrintResult cancel(PrintResult.ErrorType errorType) {
+    if (this.result == null) {
+      this.result = new PrintResult(this);
     }
-
+    this.result.cancel(errorType);
     return this.result;
   }
 
@@ -253,10 +457,55 @@ public class PrintRequest {
     this.job.setPrinter(this.printer);
     this.job.setUser(this.user);
     this.job.setTimestamp(LocalDateTime.now());
+    this.job.setDocumentHash(this.document != null ? this.document.getHash() : null);
+    this.job.setUploadedMs(this.sinceStart(this.uploadedNanos));
+    this.job.setConvertedMs(this.sinceStart(this.convertedNanos));
+    this.job.setProbedMs(this.sinceStart(this.probedNanos));
+    this.job.setSubmittedMs(this.sinceStart(this.submittedNanos));
+    this.job.setFirstPageMs(this.sinceStart(this.firstPageNanos));
+    this.job.setCompletedMs(this.sinceStart(this.completedNanos));
+
+    this.printService.getBalanceService().saveJob(this.job);
+    this.printService.getMetrics().get(this.printer).recordCompleted(this.printedPages, this.price.getCents());
+  }
+
+
+  private Integer sinceStart(long nanos) {
+    if (nanos == 0) {
+      return null;
+    }
+    return (int) Math.min(TimeUnit.NANOSECONDS.toMillis(nanos - this.startedNanos), Integer.MAX_VALUE);
+  }
+
+  /**
+   * Deletes the spooled upload, the converted and the imposed file, if any. Stored documents are kept.
+   */
+  public void release() {
+    SpoolService spoolService = this.printService.getSpoolService();
+    if (this.printFile != null) {
+      spoolService.discard(this.printFile, this.printFileCharge);
+      this.printFileCharge = 0;
+    }
 
-    this.printService.getPrintJobRepository().save(this.job);
+    if (!this.spoolFiles.isEmpty()) {
+      this.spoolFiles.forEach(SpoolFile::release);
+      if (this.document == null && this.resFile != null && !this.resFile.equals(this.srcFile)) {
+        spoolService.discard(this.resFile, this.resFileCharge);
+        this.resFileCharge = 0;
+      }
+    }
   }
 
+  /**
+   * @return {@link System#nanoTime()} when CUPS accepted the job
+   */
+  long getSubmittedNanos() {
+    return submittedNanos;
+  }
+
+  public List<SpoolFile> getSpoolFiles() {
+    return spoolFiles;
+  }
 
   public PrintJob getJob() {
     return job;
@@ -270,6 +519,17 @@ public class PrintRequest {
     return resFile;
   }
 
+  /**
+   * @return the file sent to CUPS, the imposed file if pages were selected and placed on our side
+   */
+  public File getPrintFile() {
+    return this.printFile != null ? this.printFile : this.resFile;
+  }
+
+  public boolean isImposed() {
+    return this.printFile != null;
+  }
+
   public String getName() {
     return name;
   }
@@ -294,6 +554,14 @@ public class PrintRequest {
     return copies;
   }
 
+  public DocumentStore.Document getDocument() {
+    return document;
+  }
+
+  public DocumentMetadata getMetadata() {
+    return metadata;
+  }
+
   public Integer getDocumentPages() {
     return documentPages;
   }
@@ -302,7 +570,7 @@ public class PrintRequest {
     return printedPages;
   }
 
-  public Double getPrice() {
+  public Money getPrice() {
     return price;
   }
 
@@ -340,21 +608,27 @@ public class PrintRequest {
   }
 
   public enum PrintOrientation {
-    PORTRAIT("portrait", ""),
-    LANDSCAPE("landscape", " -o landscape");
+    PORTRAIT("portrait", "", 3),
+    LANDSCAPE("landscape", " -o landscape", 4);
 
     private final String name;
     private final String cmd;
+    private final int ippValue;
 
-    PrintOrientation(String name, String cmd) {
+    PrintOrientation(String name, String cmd, int ippValue) {
       this.name = name;
       this.cmd = cmd;
+      this.ippValue = ippValue;
     }
 
     public String getCmd() {
       return cmd;
     }
 
+    public int getIppValue() {
+      return ippValue;
+    }
+
     @Override
     public String toString() {
       return this.name;
@@ -362,26 +636,33 @@ public class PrintRequest {
   }
 
   public enum PrintSides {
-    ONE_SIDED("one-sided", "one-sided", n -> n),
-    TWO_SIDED_SHORT_EDGE("two-sided, short edge", "two-sided-short-edge", n -> (n + 1) / 2),
-    TWO_SIDED_LONG_EDGE("two-sided, long edge", "two-sided-long-edge", n -> (n + 1) / 2);
+    ONE_SIDED("one-sided", "one-sided", 1),
+    TWO_SIDED_SHORT_EDGE("two-sided, short edge", "two-sided-short-edge", 2),
+    TWO_SIDED_LONG_EDGE("two-sided, long edge", "two-sided-long-edge", 2);
 
     private final String name;
     private final String cmd;
-    private final Function<Integer, Integer> numberOfPages;
+    private final int pagesPerSheet;
 
-    PrintSides(String name, String cmd, Function<Integer, Integer> numberOfPages) {
+    PrintSides(String name, String cmd, int pagesPerSheet) {
       this.name = name;
       this.cmd = cmd;
-      this.numberOfPages = numberOfPages;
+      this.pagesPerSheet = pagesPerSheet;
     }
 
     public String getCmd() {
       return " -o sides=" + cmd;
     }
 
-    public Function<Integer, Integer> numberOfPages() {
-      return numberOfPages;
+    public String getKeyword() {
+      return cmd;
+    }
+
+    /**
+     * @return the number of sheets needed for the given pages
+     */
+    public int numberOfPages(int pages) {
+      return (pages + this.pagesPerSheet - 1) / this.pagesPerSheet;
     }
 
     @Override
@@ -391,28 +672,33 @@ public class PrintRequest {
   }
 
   public enum PrintPerPage {
-    ONE("1", "1", n -> n),
-    TWO("2", "2", n -> (n + 1) / 2),
-    FOUR("4", "4", n -> (n + 3) / 4),
-    EIGHT("8", "8", n -> (n + 7) / 8),
-    SIXTEEN("16", "16", n -> (n + 15) / 16);
+    ONE("1", 1),
+    TWO("2", 2),
+    FOUR("4", 4),
+    EIGHT("8", 8),
+    SIXTEEN("16", 16);
 
     private final String name;
-    private final String cmd;
-    private final Function<Integer, Integer> numberOfPages;
+    private final int number;
 
-    PrintPerPage(String name, String cmd, Function<Integer, Integer> numberOfPages) {
+    PrintPerPage(String name, int number) {
       this.name = name;
-      this.cmd = cmd;
-      this.numberOfPages = numberOfPages;
+      this.number = number;
     }
 
     public String getCmd() {
-      return " -o number-up=" + cmd;
+      return " -o number-up=" + number;
+    }
+
+    public int getNumber() {
+      return number;
     }
 
-    public Function<Integer, Integer> numberOfPages() {
-      return numberOfPages;
+    /**
+     * @return the number of sheet sides needed for the given pages
+     */
+    public int numberOfPages(int pages) {
+      return (pages + this.number - 1) / this.number;
     }
 
     @Override
@@ -439,49 +725,291 @@ public class PrintRequest {
     }
   }
 
-  public static class PageRange {
+  /**
+   * Selected pages as sorted, merged and disjoint intervals. Parsing, counting and iterating never expand the
+   * intervals, so the size of a range does not matter.
+   */
+  public static final class PageRange {
 
+    private static final int MAX_DIGITS = 9;
+
+    /**
+     * Parses a comma separated list of pages and ranges like {@code 1,4-9}.
+     *
+     * @return the range or {@code null} if the string is empty or invalid
+     */
     public static PageRange fromString(String s) {
       if (s == null) {
         return null;
       }
 
-      try {
-        s = s.replace(" ", "");
-
-        List<Integer> pages = new LinkedList<>();
-        for (String range : s.split(",")) {
-          String[] bounds = range.split("-", 2);
-          int lowerBound = Integer.parseInt(bounds[0]);
-          int upperBound = lowerBound;
+      long[] intervals = new long[8];
+      int count = 0;
 
-          if (bounds.length == 2) {
-            upperBound = Integer.parseInt(bounds[1]);
+      int i = 0;
+      int length = s.length();
+      while (true) {
+        i = skipSpaces(s, i);
+        int lower = parsePage(s, i);
+        if (lower <= 0) {
+          return null;
+        }
+        i = skipSpaces(s, i + digits(s, i));
+
+        int upper = lower;
+        if (i < length && s.charAt(i) == '-') {
+          i = skipSpaces(s, i + 1);
+          upper = parsePage(s, i);
+          if (upper < lower) {
+            return null;
           }
+          i = skipSpaces(s, i + digits(s, i));
+        }
+
+        if (count == intervals.length) {
+          intervals = Arrays.copyOf(intervals, count * 2);
+        }
+        intervals[count++] = (long) lower << 32 | upper;
+
+        if (i == length) {
+          break;
+        }
+        if (s.charAt(i) != ',') {
+          return null;
+        }
+        i++;
+      }
+
+      return new PageRange(merge(intervals, count));
+    }
+
+    private static int skipSpaces(String s, int i) {
+      while (i < s.length() && s.charAt(i) == ' ') {
+        i++;
+      }
+      return i;
+    }
+
+    private static int digits(String s, int from) {
+      int i = from;
+      while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+        i++;
+      }
+      return i - from;
+    }
+
+    /**
+     * @return the page number starting at the index, {@code -1} if there is none or it is too large
+     */
+    private static int parsePage(String s, int from) {
+      int digits = digits(s, from);
+      if (digits == 0 || digits > MAX_DIGITS) {
+        return -1;
+      }
+
+      int value = 0;
+      for (int i = from; i < from + digits; i++) {
+        value = value * 10 + (s.charAt(i) - '0');
+      }
+      return value;
+    }
+
+    /**
+     * @param intervals lower bound in the high and upper bound in the low 32 bits
+     * @return merged bounds as {@code [lower0, upper0, lower1, upper1, ...]}
+     */
+    private static int[] merge(long[] intervals, int count) {
+      Arrays.sort(intervals, 0, count);
+
+      int[] bounds = new int[count * 2];
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        int lower = (int) (intervals[i] >>> 32);
+        int upper = (int) intervals[i];
+        if (size > 0 && lower <= bounds[size - 1] + 1) {
+          bounds[size - 1] = Math.max(bounds[size - 1], upper);
+        } else {
+          bounds[size++] = lower;
+          bounds[size++] = upper;
+        }
+      }
+      return size == bounds.length ? bounds : Arrays.copyOf(bounds, size);
+    }
+
+    private final int[] bounds;
+    private final long[] pagesBefore;
+    private final long pages;
+
+    private PageRange(int[] bounds) {
+      this.bounds = bounds;
+      this.pagesBefore = new long[bounds.length / 2 + 1];
+      for (int i = 0; i < bounds.length / 2; i++) {
+        this.pagesBefore[i + 1] = this.pagesBefore[i] + bounds[2 * i + 1] - bounds[2 * i] + 1;
+      }
+      this.pages = this.pagesBefore[bounds.length / 2];
+    }
+
+    /**
+     * @return the number of selected pages, regardless of the document
+     */
+    public long getPageCount() {
+      return pages;
+    }
+
+    /**
+     * @return the number of selected pages within a document of the given length
+     */
+    public int getPageCount(int documentPages) {
+      if (documentPages <= 0) {
+        return 0;
+      }
+
+      int last = this.bounds.length / 2 - 1;
+      if (this.bounds[2 * last + 1] <= documentPages) {
+        return (int) this.pages;
+      }
 
-          IntStream.rangeClosed(lowerBound, upperBound).forEach(pages::add);
+      int interval = this.indexOf(documentPages);
+      if (interval >= 0) {
+        return (int) (this.pagesBefore[interval] + documentPages - this.bounds[2 * interval] + 1);
+      }
+      return (int) this.pagesBefore[-interval - 1];
+    }
+
+    public boolean contains(int page) {
+      return this.indexOf(page) >= 0;
+    }
+
+    /**
+     * @return the index of the interval containing the page or {@code -(number of intervals before the page) - 1}
+     */
+    private int indexOf(int page) {
+      int low = 0;
+      int high = this.bounds.length / 2 - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (this.bounds[2 * mid + 1] < page) {
+          low = mid + 1;
+        } else if (this.bounds[2 * mid] > page) {
+          high = mid - 1;
+        } else {
+          return mid;
         }
+      }
+      return -low - 1;
+    }
 
-        return new PageRange(s, pages);
-      } catch (IndexOutOfBoundsException | NumberFormatException e) {
+    /**
+     * @return the range limited to a document of the given length or {@code null} if no page is left
+     */
+    public PageRange intersect(int documentPages) {
+      int count = this.getPageCount(documentPages);
+      if (count == this.pages) {
+        return this;
+      }
+      if (count == 0) {
         return null;
       }
+
+      int intervals = 0;
+      while (intervals < this.bounds.length / 2 && this.bounds[2 * intervals] <= documentPages) {
+        intervals++;
+      }
+      int[] bounds = Arrays.copyOf(this.bounds, intervals * 2);
+      bounds[bounds.length - 1] = Math.min(bounds[bounds.length - 1], documentPages);
+      return new PageRange(bounds);
     }
 
-    private final String cmd;
-    private final List<Integer> pages;
+    public void forEach(IntConsumer action) {
+      for (int i = 0; i < this.bounds.length; i += 2) {
+        for (int page = this.bounds[i]; page <= this.bounds[i + 1]; page++) {
+          action.accept(page);
+        }
+      }
+    }
 
-    public PageRange(String cmd, List<Integer> pages) {
-      this.cmd = cmd;
-      this.pages = pages;
+    public PrimitiveIterator.OfInt iterator() {
+      return new PrimitiveIterator.OfInt() {
+        private int interval = 0;
+        private int next = bounds.length > 0 ? bounds[0] : 0;
+
+        @Override
+        public boolean hasNext() {
+          return this.interval < bounds.length;
+        }
+
+        @Override
+        public int nextInt() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          int page = this.next;
+          if (page == bounds[this.interval + 1]) {
+            this.interval += 2;
+            this.next = this.interval < bounds.length ? bounds[this.interval] : 0;
+          } else {
+            this.next++;
+          }
+          return page;
+        }
+      };
     }
 
-    public List<Integer> getPages() {
+    /**
+     * @return the selected pages within a document of the given length
+     */
+    public int[] toArray(int documentPages) {
+      int[] pages = new int[this.getPageCount(documentPages)];
+      PrimitiveIterator.OfInt iterator = this.iterator();
+      for (int i = 0; i < pages.length; i++) {
+        pages[i] = iterator.nextInt();
+      }
       return pages;
     }
 
+    /**
+     * @return the intervals as {@code [lower, upper]} pairs, as used by the IPP {@code page-ranges} attribute
+     */
+    public List<int[]> getRanges() {
+      List<int[]> ranges = new ArrayList<>(this.bounds.length / 2);
+      for (int i = 0; i < this.bounds.length; i += 2) {
+        ranges.add(new int[]{this.bounds[i], this.bounds[i + 1]});
+      }
+      return ranges;
+    }
+
     public String getCmd() {
-      return " -o page-range=" + cmd;
+      return " -o page-range=" + this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      return Arrays.equals(bounds, ((PageRange) o).bounds);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(bounds);
+    }
+
+    /**
+     * @return the canonical form, like {@code 1,4-9}
+     */
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < this.bounds.length; i += 2) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        sb.append(this.bounds[i]);
+        if (this.bounds[i + 1] != this.bounds[i]) {
+          sb.append('-').append(this.bounds[i + 1]);
+        }
+      }
+      return sb.toString();
     }
   }
 }
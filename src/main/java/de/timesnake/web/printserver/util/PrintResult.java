@@ -2,18 +2,23 @@ package de.timesnake.web.printserver.util;
 
 import de.timesnake.web.printserver.Application;
 
-import java.io.*;
-import java.nio.file.*;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
-public class PrintResult {
+public class PrintResult implements PageLogTailer.Subscriber {
 
   private final PrintRequest request;
 
+  private CupsJobId cupsJob;
   private String cupsId;
   ErrorType errorType;
 
-  private int pagesPrinted = 0;
+  private volatile int pagesPrinted = 0;
+
+  private PrintListener listener;
+  private volatile boolean canceled = false;
 
   public PrintResult(PrintRequest request) {
     this.request = request;
@@ -21,132 +26,133 @@ public class PrintResult {
 
   public PrintResult(PrintRequest request, ErrorType errorType) {
     this.request = request;
-    this.errorType = errorType;
+    this.setErrorType(errorType);
   }
 
-  public void parseOutput(String result) {
-    if (result.contains("request id is ")) {
-      this.cupsId = result.replace("request id is ", "").replaceAll("\n", "").split(" ")[0];
-      Application.getLogger().info("CUPS id of file '" + this.request.getName() + "' from user '" +
-          this.request.getUser().getUsername() + "': " + this.cupsId);
+  void setErrorType(ErrorType errorType) {
+    this.errorType = errorType;
+    if (this.request.getPrinter() != null) {
+      this.request.printService.getMetrics().get(this.request.getPrinter()).recordError(errorType);
     }
+  }
 
-    if (this.cupsId == null || this.cupsId.isBlank()) {
-      this.errorType = ErrorType.NO_CUPS_ID;
-      this.request.status = PrintRequest.PrintStatus.ERROR;
-    }
+  void setCupsJob(CupsJobId cupsJob) {
+    this.cupsJob = cupsJob;
+    this.cupsId = cupsJob.toString();
+    Application.getLogger().info("CUPS id of file '" + this.request.getName() + "' from user '" +
+        this.request.getUser().getUsername() + "': " + this.cupsId);
   }
 
   public void syncUpdates(PrintListener listener) {
-    try {
-      File logFile = this.getRequest().printService.getCupsLogFile();
-      WatchService watcher = FileSystems.getDefault().newWatchService();
-      logFile.toPath().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY);
-      WatchKey key;
-
-      while((key = watcher.poll(10, TimeUnit.SECONDS)) != null) {
-        for (WatchEvent<?> event : key.pollEvents()) {
-          if (event.kind().equals(StandardWatchEventKinds.ENTRY_MODIFY)) {
-            boolean jobDone = this.checkLog(logFile, listener);
-            if (jobDone) {
-              return;
-            }
-          }
-        }
-        boolean valid = key.reset();
-
-        if (!valid) {
-          return;
-        }
-      }
-
-      this.errorType = ErrorType.TIME_OUT;
-    } catch (IOException | InterruptedException e) {
-      this.request.status = PrintRequest.PrintStatus.ERROR;
-      Application.getLogger().warning("Error while waiting for job completion from user '" + this.request.getUser().getUsername() + "': " + e.getMessage());
+    if (this.hasError()) {
+      return;
     }
+
+    this.listener = listener;
+    this.request.printService.getPageLogTailer().subscribe(this.cupsJob.getId(), this);
   }
 
-  private boolean checkLog(File logFile, PrintListener listener) throws IOException {
-    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(logFile)));
+  @Override
+  public void onPageLog(PageLogParser.Record record) {
+    if (this.request.firstPageNanos == 0) {
+      this.request.firstPageNanos = record.getReadNanos();
+      this.request.printService.getMetrics().get(this.request.getPrinter())
+          .recordFirstPage(this.request.getSubmittedNanos(), record.getReadNanos());
+    }
 
-    String line;
-    while ((line = reader.readLine()) != null) {
-      try {
-        String[] values = line.split(",");
-        String printer = values[0];
-        String jobId = values[1];
+    if (record.getImpressions() >= 0) {
+      this.pagesPrinted = record.getImpressions();
+    }
 
-        if (!this.cupsId.equals(printer + "-" + jobId)) {
-          continue;
-        }
+    this.listener.onPrintUpdate(this.request, this);
+  }
 
-        this.pagesPrinted = Integer.parseInt(values[7]);
+  public CompletableFuture<PrintResult> awaitCompletion() {
+    if (this.canceled) {
+      return CompletableFuture.completedFuture(this);
+    }
 
-        listener.onPrintUpdate(this.request, this);
+    Application.getLogger().info("Waiting for completion of file '" + this.request.getName() + "' from user '" +
+        this.request.getUser().getUsername() + "'");
 
-        String currentPageNumber = values[3];
+    PrintService printService = this.request.printService;
+    return printService.getJobTracker().track(this.cupsJob, this.request.getPrintedPages())
+        .handleAsync((state, e) -> {
+          if (this.canceled) {
+            return this;
+          }
 
-        return currentPageNumber.equals("total");
-      } catch (NumberFormatException | IndexOutOfBoundsException ignored) {
+          printService.getPageLogTailer().unsubscribe(this.cupsJob.getId());
 
-      }
-    }
+          if (e != null) {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            this.setErrorType(cause instanceof TimeoutException ? ErrorType.TIME_OUT : ErrorType.EXECUTION_EXCEPTION);
+          } else if (state != CupsJobState.COMPLETED) {
+            this.setErrorType(ErrorType.JOB_CANCELED);
+          }
 
-    return false;
-  }
+          this.request.completedNanos = System.nanoTime();
+          printService.getMetrics().get(this.request.getPrinter())
+              .recordCompletion(this.request.getSubmittedNanos(), !this.hasError());
 
+          if (this.hasError()) {
+            this.request.status = PrintRequest.PrintStatus.ERROR;
+            Application.getLogger().warning("Error while waiting for completion of job '" + this.cupsId +
+                "' from user '" + this.request.getUser().getUsername() + "': " + this.errorType.getMessage());
+            this.listener.onError(this);
+            return this;
+          }
 
-  public void waitForCompletion() {
-    Application.getLogger().info("Waiting for completion of file '" + this.request.getName() + "' from user '" +
-        this.request.getUser().getUsername() + "'");
+          printService.getPrintExecutor().complete(this::complete);
+          this.request.status = PrintRequest.PrintStatus.COMPLETED;
 
-    try {
-      int timeoutCounterSec = 0;
-      StringBuilder result;
-
-      do {
-        if (timeoutCounterSec > 10) {
-          this.errorType = ErrorType.TIME_OUT;
-          break;
-        }
-
-        Thread.sleep(1000);
-
-        Process process = Runtime.getRuntime().exec("lpstat -W completed | grep " + this.cupsId);
-
-        BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-        BufferedReader outputReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-        String errorResult;
-        while ((errorResult = errorReader.readLine()) != null) {
-          Application.getLogger().warning("Error while waiting for job completion from user '" + this.request.getUser().getUsername() + "': " + errorResult);
-        }
-
-        result = new StringBuilder();
-        String line;
-        while ((line  = outputReader.readLine()) != null) {
-          result.append(line);
-        }
-
-        timeoutCounterSec++;
-      } while (!result.toString().contains(this.cupsId));
-    } catch (IOException | InterruptedException e) {
-      this.request.status = PrintRequest.PrintStatus.ERROR;
-      Application.getLogger().warning("Error while waiting for job completion from user '" + this.request.getUser().getUsername() + "': " + e.getMessage());
+          Application.getLogger().info("Completed job '" + this.cupsId + "' for file '" + this.request.getName() + "' from user '" + this.request.getUser().getUsername() + "'");
+          this.listener.onCompleted(this.request, this);
+          return this;
+        }, printService.getExecutorService());
+  }
+
+  void cancel(ErrorType errorType) {
+    if (this.canceled) {
       return;
     }
 
-    this.complete();
-    this.request.status = PrintRequest.PrintStatus.COMPLETED;
+    this.canceled = true;
+    this.setErrorType(errorType);
+    this.request.status = PrintRequest.PrintStatus.ERROR;
 
-    Application.getLogger().info("Completed job '" + this.cupsId + "' for file '" + this.request.getName() + "' from user '" + this.request.getUser().getUsername() + "'");
+    if (this.cupsJob != null) {
+      this.releaseCupsJob();
+    }
+  }
+
+  void releaseCupsJob() {
+    PrintService printService = this.request.printService;
+    printService.getJobTracker().untrack(this.cupsJob);
+    printService.getPageLogTailer().unsubscribe(this.cupsJob.getId());
+
+    try {
+      printService.getPrintBackend().cancel(this.cupsJob, this.request.getUser().getUsername());
+      Application.getLogger().info("Canceled job '" + this.cupsId + "' from user '" +
+          this.request.getUser().getUsername() + "'");
+    } catch (IOException e) {
+      Application.getLogger().warning("Error while canceling job '" + this.cupsId + "' from user '" +
+          this.request.getUser().getUsername() + "': " + e.getMessage());
+    }
+  }
+
+  public boolean isCanceled() {
+    return canceled;
   }
 
   public String getCupsId() {
     return cupsId;
   }
 
+  public CupsJobId getCupsJob() {
+    return cupsJob;
+  }
+
   public boolean hasError() {
     return this.errorType != null;
   }
@@ -172,6 +178,9 @@ public class PrintResult {
     EXECUTION_EXCEPTION("exception while waiting for result", "execution_exception"),
     ALREADY_RUNNING("job already running", "already_running"),
     TIME_OUT("timed out", "time_out"),
+    JOB_CANCELED("job canceled or aborted by CUPS", "job_canceled"),
+    CANCELED("job canceled", "canceled"),
+    QUEUE_FULL("printer queue full", "queue_full"),
     FILE_CONVERT("unable to convert file", "file_convert"),
     PAGE_COUNT("unable to calculate page number", "page_count");
 
@@ -8,99 +8,161 @@ import de.timesnake.web.printserver.data.entity.Printer;
 import de.timesnake.web.printserver.data.entity.PrinterRepository;
 import de.timesnake.web.printserver.data.entity.User;
 import de.timesnake.web.printserver.data.service.PrintJobRepository;
+import de.timesnake.web.printserver.data.service.UserBalanceService;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 
 @Service
 public class PrintService {
 
-  private final ExecutorService executorService = new ThreadPoolExecutor(5, 100, 5L, TimeUnit.MILLISECONDS,
-      new LinkedBlockingQueue<>());
+  private final Config config;
+  private final PrintExecutor printExecutor;
 
   private final PrintJobRepository printJobRepository;
+  private final UserBalanceService balanceService;
   private final PrinterRepository printerRepository;
+  private final PrinterCatalog printerCatalog;
 
   private final PdfService pdfService;
-
-  private final File cupsLogFile;
-
-  public PrintService(PrintJobRepository printJobRepository, PrinterRepository printerRepository, PdfService pdfService, Config config) {
+  private final DocumentStore documentStore;
+  private final SpoolService spoolService;
+
+  private final PageLogTailer pageLogTailer;
+  private final PrintBackend printBackend;
+  private final CupsJobTracker jobTracker;
+  private final PrintDispatcher dispatcher;
+  private final PrintMetrics metrics;
+
+  public PrintService(PrintJobRepository printJobRepository, UserBalanceService balanceService,
+                      PrinterRepository printerRepository, PrinterCatalog printerCatalog,
+                      PdfService pdfService, DocumentStore documentStore, SpoolService spoolService,
+                      PageLogTailer pageLogTailer, PrintBackend printBackend, CupsJobTracker jobTracker,
+                      PrintExecutor printExecutor, PrintDispatcher dispatcher, PrintMetrics metrics,
+                      Config config) {
     this.printJobRepository = printJobRepository;
+    this.balanceService = balanceService;
     this.printerRepository = printerRepository;
+    this.printerCatalog = printerCatalog;
     this.pdfService = pdfService;
-    this.cupsLogFile = new File(config.getCupsLogFilePath());
+    this.documentStore = documentStore;
+    this.spoolService = spoolService;
+    this.pageLogTailer = pageLogTailer;
+    this.printBackend = printBackend;
+    this.jobTracker = jobTracker;
+    this.printExecutor = printExecutor;
+    this.dispatcher = dispatcher;
+    this.metrics = metrics;
+    this.config = config;
   }
 
   public ExecutorService getExecutorService() {
-    return executorService;
+    return this.printExecutor.getExecutorService();
+  }
+
+  public PrintExecutor getPrintExecutor() {
+    return printExecutor;
   }
 
   public Printer getDefaultPrinter() {
-    return this.printerRepository.findAll().stream().min(Comparator.comparing(Printer::getPriority)).orElse(null);
+    return this.printerCatalog.getDefaultPrinter();
   }
 
   public PrintJobRepository getPrintJobRepository() {
     return printJobRepository;
   }
 
+  public UserBalanceService getBalanceService() {
+    return balanceService;
+  }
+
   public PrinterRepository getPrinterRepository() {
     return printerRepository;
   }
 
+  public PrinterCatalog getPrinterCatalog() {
+    return printerCatalog;
+  }
+
   public PdfService getPdfService() {
     return pdfService;
   }
 
-  public File getCupsLogFile() {
-    return this.cupsLogFile;
+  public DocumentStore getDocumentStore() {
+    return documentStore;
+  }
+
+  public SpoolService getSpoolService() {
+    return spoolService;
+  }
+
+  public Config getConfig() {
+    return config;
+  }
+
+  public PageLogTailer getPageLogTailer() {
+    return this.pageLogTailer;
+  }
+
+  public PrintBackend getPrintBackend() {
+    return printBackend;
+  }
+
+  public CupsJobTracker getJobTracker() {
+    return jobTracker;
+  }
+
+  public PrintDispatcher getDispatcher() {
+    return dispatcher;
+  }
+
+  public PrintMetrics getMetrics() {
+    return metrics;
   }
 
   public PrintRequest createRequest(File file) {
     return new PrintRequest(this, file);
   }
 
-  public Future<List<PrintResult>> process(List<PrintRequest> requests, PrintListener printListener) {
-    return this.getExecutorService().submit(() -> this.processSync(requests, printListener));
+  public PrintRequest createRequest(SpoolFile file) {
+    return new PrintRequest(this, file);
   }
 
-  private List<PrintResult> processSync(List<PrintRequest> requests, PrintListener printListener) {
-    Map<PrintRequest, Future<PrintResult>> futures = new HashMap<>(requests.size());
-    for (PrintRequest request : requests) {
-      futures.put(request, this.getExecutorService().submit(() -> {
-        PrintResult res = request.start(printListener);
-
-        if (!res.hasError()) {
-          res.waitForCompletion();
-          printListener.onCompleted(request, res);
-        }
-        return res;
-      }));
+  /**
+   * Creates the requests for the uploaded files, converting them in parallel.
+   *
+   * @param combineImages print all images as one document
+   */
+  public List<PrintRequest> createRequests(List<SpoolFile> files, boolean combineImages) {
+    List<CompletableFuture<PrintRequest>> requests = new ArrayList<>();
+
+    List<SpoolFile> images = new ArrayList<>();
+    for (SpoolFile file : files) {
+      if (combineImages && ImageConverter.isSupported(file.getType())) {
+        images.add(file);
+      } else {
+        requests.add(CompletableFuture.supplyAsync(() -> this.createRequest(file), this.getExecutorService()));
+      }
     }
 
-    List<PrintResult> results = new ArrayList<>(futures.size());
-    for (Map.Entry<PrintRequest, Future<PrintResult>> entry : futures.entrySet()) {
-      try {
-        results.add(entry.getValue().get(1, TimeUnit.MINUTES));
-      } catch (InterruptedException | ExecutionException e) {
-        Application.getLogger().warning("Exception while waiting for result of file '" + entry.getKey().getName()
-            + "' from user '" + entry.getKey().getUser().getUsername() + "': " + e.getMessage());
-        PrintResult result = entry.getKey().getResult();
-        result.errorType = PrintResult.ErrorType.EXECUTION_EXCEPTION;
-        results.add(result);
-        printListener.onError(result);
-      } catch (TimeoutException e) {
-        Application.getLogger().warning("Result timeout of file '" + entry.getKey().getName()
-            + "' from user '" + entry.getKey().getUser().getUsername() + "': " + e.getMessage());
-        PrintResult result = entry.getKey().getResult();
-        result.errorType = PrintResult.ErrorType.TIME_OUT;
-        results.add(result);
-        printListener.onError(result);
-      }
+    if (!images.isEmpty()) {
+      requests.add(CompletableFuture.supplyAsync(() -> new PrintRequest(this, images), this.getExecutorService()));
     }
 
-    return results;
+    return requests.stream().map(CompletableFuture::join).toList();
+  }
+
+  public PrintRequest createRequest(DocumentStore.Document document, String name) {
+    return new PrintRequest(this, document, name);
+  }
+
+  public PrintBatch process(List<PrintRequest> requests, PrintListener printListener) {
+    PrintBatch batch = new PrintBatch(this, List.copyOf(requests), printListener,
+        Duration.ofSeconds(this.config.getBatchTimeout()));
+    batch.start();
+    return batch;
   }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+import de.timesnake.web.printserver.data.entity.Printer;
+import de.timesnake.web.printserver.data.entity.PrinterRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of all printers and their compiled price rules, replaced as a whole whenever a printer is
+ * saved or deleted through this service.
+ */
+@Service
+public class PrinterCatalog {
+
+  private final PrinterRepository printerRepository;
+  private final Config config;
+
+  private volatile Snapshot snapshot;
+
+  public PrinterCatalog(PrinterRepository printerRepository, Config config) {
+    this.printerRepository = printerRepository;
+    this.config = config;
+    this.snapshot = new Snapshot(List.of(), config);
+  }
+
+  @PostConstruct
+  public synchronized void refresh() {
+    this.snapshot = new Snapshot(this.printerRepository.findAll(), this.config);
+    Application.getLogger().info("Loaded " + this.snapshot.printers.size() + " printers");
+  }
+
+  public Printer save(Printer printer) {
+    Printer saved = this.printerRepository.save(printer);
+    this.refresh();
+    return saved;
+  }
+
+  public void delete(Printer printer) {
+    this.printerRepository.delete(printer);
+    this.refresh();
+  }
+
+  /**
+   * @return all printers sorted by priority
+   */
+  public List<Printer> getPrinters() {
+    return this.snapshot.printers;
+  }
+
+  /**
+   * @return printer with the lowest priority value or {@code null} if there are none
+   */
+  public Printer getDefaultPrinter() {
+    List<Printer> printers = this.snapshot.printers;
+    return printers.isEmpty() ? null : printers.get(0);
+  }
+
+  public Printer getById(Long id) {
+    return this.snapshot.byId.get(id);
+  }
+
+  public Printer getByCupsName(String cupsName) {
+    return this.snapshot.byCupsName.get(cupsName);
+  }
+
+  /**
+   * @return the compiled price rules, compiled on demand for printers not saved through this catalog
+   */
+  public PriceCalculator getPriceCalculator(Printer printer) {
+    PriceCalculator calculator = printer.getId() != null ? this.snapshot.calculators.get(printer.getId()) : null;
+    return calculator != null ? calculator : PriceCalculator.compile(printer, this.config);
+  }
+
+  private static class Snapshot {
+
+    private final List<Printer> printers;
+    private final Map<Long, Printer> byId;
+    private final Map<String, Printer> byCupsName;
+    private final Map<Long, PriceCalculator> calculators;
+
+    private Snapshot(List<Printer> printers, Config config) {
+      this.printers = printers.stream().sorted(Comparator.comparing(Printer::getPriority)).toList();
+      this.byId = this.printers.stream().collect(Collectors.toUnmodifiableMap(Printer::getId, Function.identity()));
+      this.byCupsName = this.printers.stream().collect(Collectors.toUnmodifiableMap(Printer::getCupsName,
+          Function.identity(), (a, b) -> a));
+      this.calculators = this.printers.stream().collect(Collectors.toUnmodifiableMap(Printer::getId,
+          p -> PriceCalculator.compile(p, config)));
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bounded queue in front of a single printer. At most {@code concurrency} jobs run at the printer at once, up to
+ * {@code capacity} further jobs wait, everything beyond is rejected.
+ */
+public class PrinterQueue {
+
+  private final String name;
+  private final int concurrency;
+  private final int capacity;
+
+  private final Deque<Entry> waiting = new ArrayDeque<>();
+  private int running = 0;
+
+  private long rejected = 0;
+  private long dispatched = 0;
+  private long totalWaitNanos = 0;
+  private long maxWaitNanos = 0;
+
+  public PrinterQueue(String name, int concurrency, int capacity) {
+    this.name = name;
+    this.concurrency = concurrency;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Runs the job as soon as a worker slot of this printer is free. The slot is held until the future returned by
+   * the job completes.
+   *
+   * @return {@code false} if the queue is full and the job was rejected
+   */
+  public boolean offer(Supplier<? extends CompletableFuture<?>> job) {
+    Entry entry = new Entry(job, System.nanoTime());
+
+    synchronized (this) {
+      if (this.running >= this.concurrency) {
+        if (this.waiting.size() >= this.capacity) {
+          this.rejected++;
+          return false;
+        }
+        this.waiting.add(entry);
+        return true;
+      }
+      this.running++;
+    }
+
+    this.dispatch(entry);
+    return true;
+  }
+
+  private void dispatch(Entry entry) {
+    long waited = System.nanoTime() - entry.queued;
+    synchronized (this) {
+      this.dispatched++;
+      this.totalWaitNanos += waited;
+      this.maxWaitNanos = Math.max(this.maxWaitNanos, waited);
+    }
+
+    try {
+      entry.job.get().whenComplete((r, e) -> this.release());
+    } catch (RuntimeException e) {
+      this.release();
+      throw e;
+    }
+  }
+
+  private void release() {
+    Entry next;
+    synchronized (this) {
+      next = this.waiting.poll();
+      if (next == null) {
+        this.running--;
+        return;
+      }
+    }
+    this.dispatch(next);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public synchronized int getRunning() {
+    return running;
+  }
+
+  public synchronized int getQueueDepth() {
+    return this.waiting.size();
+  }
+
+  public synchronized boolean isFull() {
+    return this.running >= this.concurrency && this.waiting.size() >= this.capacity;
+  }
+
+  public synchronized long getRejected() {
+    return rejected;
+  }
+
+  public synchronized Duration getAverageWaitTime() {
+    return Duration.ofNanos(this.dispatched > 0 ? this.totalWaitNanos / this.dispatched : 0);
+  }
+
+  public synchronized Duration getMaxWaitTime() {
+    return Duration.ofNanos(this.maxWaitNanos);
+  }
+
+  public synchronized Duration getOldestWaitTime() {
+    Entry oldest = this.waiting.peek();
+    return Duration.ofNanos(oldest != null ? System.nanoTime() - oldest.queued : 0);
+  }
+
+  private record Entry(Supplier<? extends CompletableFuture<?>> job, long queued) {
+
+  }
+}
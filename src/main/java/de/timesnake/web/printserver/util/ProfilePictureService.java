@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+import de.timesnake.web.printserver.data.entity.ProfilePicture;
+import de.timesnake.web.printserver.data.service.ProfilePictureRepository;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores profile pictures off the user row. A small PNG thumbnail is created on upload and the thumbnails of
+ * recently shown users are kept in a bounded LRU cache.
+ */
+@Service
+public class ProfilePictureService {
+
+  public static final int THUMBNAIL_SIZE = 128;
+
+  /**
+   * Content type of pictures migrated from the user row, which are stored before their type is known.
+   */
+  private static final String UNKNOWN_CONTENT_TYPE = "application/octet-stream";
+
+  private static final Picture NONE = new Picture(new byte[0], null, null);
+
+  private final ProfilePictureRepository repository;
+  private final int maxSize;
+
+  private final Map<Long, Picture> thumbnails;
+
+  public ProfilePictureService(ProfilePictureRepository repository, Config config) {
+    this.repository = repository;
+    this.maxSize = config.getProfilePictureMaxSize();
+
+    int cacheSize = config.getProfilePictureCacheSize();
+    this.thumbnails = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Picture> eldest) {
+        return this.size() > cacheSize;
+      }
+    };
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @return etag of the new picture
+   * @throws IOException if the data is too large or no readable image
+   */
+  public String store(Long userId, byte[] data) throws IOException {
+    if (data.length > this.maxSize) {
+      throw new IOException("picture exceeds " + this.maxSize + " bytes");
+    }
+
+    String contentType = contentType(data);
+    byte[] thumbnail = thumbnail(data);
+
+    ProfilePicture picture = this.repository.findById(userId).orElseGet(ProfilePicture::new);
+    picture.setUserId(userId);
+    picture.setContentType(contentType);
+    picture.setImage(data);
+    picture.setThumbnail(thumbnail);
+    picture.setEtag(hash(data));
+    picture.setUpdated(LocalDateTime.now());
+    this.repository.save(picture);
+
+    synchronized (this.thumbnails) {
+      this.thumbnails.put(userId, new Picture(thumbnail, "image/png", picture.getEtag()));
+    }
+
+    Application.getLogger().info("Saved profile picture of user " + userId);
+    return picture.getEtag();
+  }
+
+  public void delete(Long userId) {
+    this.repository.deleteById(userId);
+    synchronized (this.thumbnails) {
+      this.thumbnails.remove(userId);
+    }
+  }
+
+  /**
+   * @return etag of the current picture or {@code null} if the user has none
+   */
+  public String getEtag(Long userId) {
+    Picture thumbnail = this.getThumbnail(userId);
+    return thumbnail != null ? thumbnail.etag() : null;
+  }
+
+  public Picture getThumbnail(Long userId) {
+    Picture cached;
+    synchronized (this.thumbnails) {
+      cached = this.thumbnails.get(userId);
+    }
+
+    if (cached == null) {
+      cached = this.repository.findThumbnailByUserId(userId)
+          .map(t -> t.getThumbnail() != null ? new Picture(t.getThumbnail(), "image/png", t.getEtag())
+              : this.repository.findById(userId).map(p -> this.complete(p) ? thumbnailOf(p) : NONE)
+              .orElse(NONE))
+          .orElse(NONE);
+      synchronized (this.thumbnails) {
+        this.thumbnails.put(userId, cached);
+      }
+    }
+
+    return cached != NONE ? cached : null;
+  }
+
+  /**
+   * @return the picture as uploaded, or {@code null} if the user has none or it is no readable image
+   */
+  public Picture getImage(Long userId) {
+    return this.repository.findById(userId)
+        .filter(p -> (p.getThumbnail() != null && !UNKNOWN_CONTENT_TYPE.equals(p.getContentType()))
+            || this.complete(p))
+        .map(p -> new Picture(p.getImage(), p.getContentType(), p.getEtag()))
+        .orElse(null);
+  }
+
+  /**
+   * Detects the content type and creates the thumbnail of a migrated picture, and caches the thumbnail.
+   *
+   * @return false if the picture is no readable image
+   */
+  private boolean complete(ProfilePicture picture) {
+    try {
+      picture.setContentType(contentType(picture.getImage()));
+      picture.setThumbnail(thumbnail(picture.getImage()));
+      this.repository.save(picture);
+    } catch (IOException e) {
+      Application.getLogger().warning("Unable to create thumbnail for user " + picture.getUserId() + ": " +
+          e.getMessage());
+      return false;
+    }
+
+    synchronized (this.thumbnails) {
+      this.thumbnails.put(picture.getUserId(), thumbnailOf(picture));
+    }
+    return true;
+  }
+
+  private static Picture thumbnailOf(ProfilePicture picture) {
+    return new Picture(picture.getThumbnail(), "image/png", picture.getEtag());
+  }
+
+  private static String contentType(byte[] data) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext()) {
+        throw new IOException("unsupported image format");
+      }
+      String[] types = readers.next().getOriginatingProvider().getMIMETypes();
+      return types != null && types.length > 0 ? types[0] : UNKNOWN_CONTENT_TYPE;
+    }
+  }
+
+  private static byte[] thumbnail(byte[] data) throws IOException {
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+    if (image == null) {
+      throw new IOException("unsupported image format");
+    }
+
+    double scale = Math.min(1, (double) THUMBNAIL_SIZE / Math.max(image.getWidth(), image.getHeight()));
+    int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+    int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+    BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = thumbnail.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g.drawImage(image, 0, 0, width, height, null);
+    } finally {
+      g.dispose();
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(thumbnail, "png", out);
+    return out.toByteArray();
+  }
+
+  private static String hash(byte[] data) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public record Picture(byte[] data, String contentType, String etag) {
+
+  }
+}
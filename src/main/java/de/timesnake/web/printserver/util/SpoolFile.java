@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle of an uploaded file in the spool directory. Hash, size and type are known once the upload finished, the
+ * file is removed and its quota returned on {@link #release()}.
+ */
+public class SpoolFile {
+
+  private final SpoolService spoolService;
+  private final Path path;
+  private final String name;
+  private final long size;
+  private final String hash;
+  private final FileType type;
+  private final long openedNanos;
+  private final long closedNanos;
+
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  SpoolFile(SpoolService spoolService, Path path, String name, long size, String hash, FileType type,
+            long openedNanos, long closedNanos) {
+    this.spoolService = spoolService;
+    this.path = path;
+    this.name = name;
+    this.size = size;
+    this.hash = hash;
+    this.type = type;
+    this.openedNanos = openedNanos;
+    this.closedNanos = closedNanos;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public File getFile() {
+    return path.toFile();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+
+  public FileType getType() {
+    return type;
+  }
+
+  /**
+   * @return {@link System#nanoTime()} when the upload started
+   */
+  public long getOpenedNanos() {
+    return openedNanos;
+  }
+
+  /**
+   * @return {@link System#nanoTime()} when the upload was complete
+   */
+  public long getClosedNanos() {
+    return closedNanos;
+  }
+
+  public boolean isReleased() {
+    return released.get();
+  }
+
+  public void release() {
+    if (!this.released.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      Files.deleteIfExists(this.path);
+    } catch (IOException e) {
+      Application.getLogger().warning("Unable to delete spool file '" + this.path + "': " + e.getMessage());
+    }
+    this.spoolService.free(this.size);
+  }
+
+  public enum FileType {
+    PDF("pdf"),
+    JPEG("jpg"),
+    PNG("png"),
+    TIFF("tiff"),
+    UNKNOWN("bin");
+
+    /**
+     * Detects the type from the first bytes of the file.
+     */
+    public static FileType sniff(byte[] head, int length) {
+      if (startsWith(head, length, '%', 'P', 'D', 'F')) {
+        return PDF;
+      }
+      if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+        return JPEG;
+      }
+      if (startsWith(head, length, 0x89, 'P', 'N', 'G')) {
+        return PNG;
+      }
+      if (startsWith(head, length, 'I', 'I', 0x2A, 0x00) || startsWith(head, length, 'M', 'M', 0x00, 0x2A)) {
+        return TIFF;
+      }
+      return UNKNOWN;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... magic) {
+      if (length < magic.length) {
+        return false;
+      }
+      for (int i = 0; i < magic.length; i++) {
+        if ((head[i] & 0xFF) != magic[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private final String extension;
+
+    FileType(String extension) {
+      this.extension = extension;
+    }
+
+    public String getExtension() {
+      return extension;
+    }
+  }
+}
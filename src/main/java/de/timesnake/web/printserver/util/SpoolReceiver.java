@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import com.vaadin.flow.component.upload.MultiFileReceiver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upload receiver streaming files into the spool directory. Finished uploads are kept by file name until they
+ * are taken for printing or discarded.
+ */
+public class SpoolReceiver implements MultiFileReceiver {
+
+  private final SpoolService spoolService;
+
+  private final Map<String, SpoolFile> files = new LinkedHashMap<>();
+
+  public SpoolReceiver(SpoolService spoolService) {
+    this.spoolService = spoolService;
+  }
+
+  @Override
+  public OutputStream receiveUpload(String fileName, String mimeType) {
+    try {
+      return this.spoolService.open(fileName, file -> {
+        SpoolFile previous;
+        synchronized (this.files) {
+          previous = this.files.put(fileName, file);
+        }
+        if (previous != null) {
+          previous.release();
+        }
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return all finished uploads, the caller is responsible to release them
+   */
+  public List<SpoolFile> takeAll() {
+    synchronized (this.files) {
+      List<SpoolFile> taken = new ArrayList<>(this.files.values());
+      this.files.clear();
+      return taken;
+    }
+  }
+
+  public void discard(String fileName) {
+    SpoolFile file;
+    synchronized (this.files) {
+      file = this.files.remove(fileName);
+    }
+    if (file != null) {
+      file.release();
+    }
+  }
+
+  public void discardAll() {
+    this.takeAll().forEach(SpoolFile::release);
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import de.timesnake.web.printserver.Application;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Owns the spool directory uploads are streamed into. Limits the total size of spooled files, uploads as well as
+ * converted and imposed files derived from them, and the number of uploads running at the same time.
+ */
+@Service
+public class SpoolService {
+
+  private static final int SNIFF_LENGTH = 8;
+
+  private final Path directory;
+  private final long quota;
+  private final int maxUploads;
+  private final Semaphore uploads;
+
+  private final AtomicLong used = new AtomicLong();
+
+  public SpoolService(Config config) {
+    this.directory = Path.of(config.getSpoolDirectory());
+    this.quota = config.getSpoolQuotaInMB() * 1024L * 1024L;
+    this.maxUploads = config.getMaxConcurrentUploads();
+    this.uploads = new Semaphore(this.maxUploads);
+  }
+
+  @PostConstruct
+  public void init() throws IOException {
+    Files.createDirectories(this.directory);
+
+    // files of a previous run are not referenced anymore
+    try (Stream<Path> files = Files.list(this.directory)) {
+      files.forEach(file -> {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          Application.getLogger().warning("Unable to delete spool file '" + file + "': " + e.getMessage());
+        }
+      });
+    }
+  }
+
+  /**
+   * Opens a stream writing into a new spool file.
+   *
+   * @param onComplete called with the handle once the stream is closed
+   * @throws IOException if too many uploads are running
+   */
+  public OutputStream open(String name, Consumer<SpoolFile> onComplete) throws IOException {
+    if (!this.uploads.tryAcquire()) {
+      throw new IOException("too many concurrent uploads");
+    }
+
+    try {
+      Path path = this.directory.resolve(UUID.randomUUID().toString());
+      return new SpoolOutputStream(path, name, Files.newOutputStream(path), onComplete);
+    } catch (IOException | RuntimeException e) {
+      this.uploads.release();
+      throw e;
+    }
+  }
+
+  /**
+   * @return a path for an intermediate file in the spool directory, removed at the latest on the next start
+   */
+  public Path createTempPath(String suffix) {
+    return this.directory.resolve(UUID.randomUUID() + suffix);
+  }
+
+  /**
+   * Charges a written intermediate file against the quota. Its size is only known afterwards, so the quota may be
+   * exceeded by one file.
+   *
+   * @return the charged size, to be passed to {@link #discard(File, long)}
+   * @throws IOException if the quota is exceeded, the file is deleted then
+   */
+  public long charge(File file) throws IOException {
+    long size;
+    try {
+      size = Files.size(file.toPath());
+      reserve(size);
+    } catch (IOException e) {
+      file.delete();
+      throw e;
+    }
+    return size;
+  }
+
+  /**
+   * Deletes an intermediate file and returns its charged size.
+   */
+  public void discard(File file, long charged) {
+    file.delete();
+    free(charged);
+  }
+
+  public long getUsed() {
+    return used.get();
+  }
+
+  public long getQuota() {
+    return quota;
+  }
+
+  public int getActiveUploads() {
+    return this.maxUploads - this.uploads.availablePermits();
+  }
+
+  private void reserve(long bytes) throws IOException {
+    if (this.used.addAndGet(bytes) > this.quota) {
+      this.used.addAndGet(-bytes);
+      throw new IOException("spool quota exceeded");
+    }
+  }
+
+  void free(long bytes) {
+    this.used.addAndGet(-bytes);
+  }
+
+  private class SpoolOutputStream extends OutputStream {
+
+    private final Path path;
+    private final String name;
+    private final OutputStream out;
+    private final Consumer<SpoolFile> onComplete;
+    private final MessageDigest digest;
+    private final long openedNanos = System.nanoTime();
+
+    private final byte[] head = new byte[SNIFF_LENGTH];
+    private long size = 0;
+    private boolean failed = false;
+    private boolean closed = false;
+
+    private SpoolOutputStream(Path path, String name, OutputStream out, Consumer<SpoolFile> onComplete)
+        throws IOException {
+      this.path = path;
+      this.name = name;
+      this.out = out;
+      this.onComplete = onComplete;
+      try {
+        this.digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      this.write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      try {
+        reserve(len);
+        if (this.size < SNIFF_LENGTH) {
+          System.arraycopy(b, off, this.head, (int) this.size, (int) Math.min(len, SNIFF_LENGTH - this.size));
+        }
+        // counted before writing, so a failed write is freed on close as well
+        this.size += len;
+        this.out.write(b, off, len);
+        this.digest.update(b, off, len);
+      } catch (IOException e) {
+        this.failed = true;
+        throw e;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+
+      try {
+        this.out.close();
+      } catch (IOException e) {
+        this.failed = true;
+        throw e;
+      } finally {
+        uploads.release();
+
+        if (this.failed) {
+          free(this.size);
+          Files.deleteIfExists(this.path);
+        } else {
+          this.onComplete.accept(new SpoolFile(SpoolService.this, this.path, this.name, this.size,
+              HexFormat.of().formatHex(this.digest.digest()),
+              SpoolFile.FileType.sniff(this.head, (int) Math.min(this.size, SNIFF_LENGTH)), this.openedNanos,
+              System.nanoTime()));
+        }
+      }
+    }
+  }
+}
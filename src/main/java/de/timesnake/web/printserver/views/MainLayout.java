@@ -15,20 +15,24 @@ import com.vaadin.flow.router.RouterLink;
 import de.timesnake.web.printserver.data.service.UserService;
 import de.timesnake.web.printserver.security.AuthenticatedUser;
 import de.timesnake.web.printserver.security.SecurityConfiguration;
+import de.timesnake.web.printserver.util.ProfilePictureService;
 import de.timesnake.web.printserver.views.print.PrintView;
 import de.timesnake.web.printserver.views.printer.PrintersView;
+import de.timesnake.web.printserver.views.timing.TimingsView;
 import de.timesnake.web.printserver.views.user.UserMenu;
 import de.timesnake.web.printserver.views.user.UserView;
 
 public class MainLayout extends AppLayout {
 
   private final UserService userService;
+  private final ProfilePictureService profilePictureService;
   private final SecurityConfiguration securityConfiguration;
   private final AuthenticatedUser authenticatedUser;
 
-  public MainLayout(UserService userService, SecurityConfiguration securityConfiguration,
-                    AuthenticatedUser authenticatedUser) {
+  public MainLayout(UserService userService, ProfilePictureService profilePictureService,
+                    SecurityConfiguration securityConfiguration, AuthenticatedUser authenticatedUser) {
     this.userService = userService;
+    this.profilePictureService = profilePictureService;
     this.securityConfiguration = securityConfiguration;
     this.authenticatedUser = authenticatedUser;
 
@@ -47,7 +51,8 @@ public class MainLayout extends AppLayout {
     Tabs tabs = new Tabs();
     tabs.add(createTab(VaadinIcon.PRINT, "Print", PrintView.class),
         createTab(VaadinIcon.USERS, "Users", UserView.class),
-        createTab(VaadinIcon.HARDDRIVE, "Printers", PrintersView.class));
+        createTab(VaadinIcon.HARDDRIVE, "Printers", PrintersView.class),
+        createTab(VaadinIcon.TIMER, "Timings", TimingsView.class));
     tabs.setOrientation(Tabs.Orientation.VERTICAL);
     return tabs;
   }
@@ -69,7 +74,8 @@ public class MainLayout extends AppLayout {
   private Footer createFooter() {
     Footer layout = new Footer();
 
-    layout.add(new UserMenu(this.userService, this.securityConfiguration, this.authenticatedUser, true));
+    layout.add(new UserMenu(this.userService, this.profilePictureService, this.securityConfiguration,
+        this.authenticatedUser, true));
 
     return layout;
   }
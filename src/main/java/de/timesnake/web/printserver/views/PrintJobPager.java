@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.views;
+
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
+import de.timesnake.web.printserver.data.entity.PrintJob;
+import de.timesnake.web.printserver.data.service.PrintJobCursor;
+import de.timesnake.web.printserver.data.service.PrintJobRepository;
+import de.timesnake.web.printserver.data.service.PrintJobSpecifications;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Loads print job grid pages. While the grid scrolls page by page in timestamp order, the next page is sought
+ * from the last loaded job, otherwise it falls back to offset paging.
+ */
+public class PrintJobPager {
+
+  private final PrintJobRepository printJobRepository;
+
+  private int nextOffset = -1;
+  private Boolean descending;
+  private PrintJobCursor cursor;
+
+  public PrintJobPager(PrintJobRepository printJobRepository) {
+    this.printJobRepository = printJobRepository;
+  }
+
+  public Stream<PrintJob> fetch(Specification<PrintJob> specification, Query<PrintJob, ?> query) {
+    Sort sort = VaadinSpringDataHelpers.toSpringDataSort(query);
+    Boolean descending = seekDirection(sort);
+
+    if (descending == null || query.getOffset() != 0
+        && (query.getOffset() != this.nextOffset || !descending.equals(this.descending))) {
+      this.nextOffset = -1;
+      return this.printJobRepository.findAll(specification, PageRequest.of(query.getPage(), query.getPageSize(),
+          PrintJobSpecifications.withDefaultOrder(sort))).stream();
+    }
+
+    List<PrintJob> jobs = this.printJobRepository.findPage(specification,
+        query.getOffset() == 0 ? null : this.cursor, descending, query.getLimit());
+
+    this.descending = descending;
+    this.nextOffset = query.getOffset() + jobs.size();
+    this.cursor = jobs.isEmpty() ? this.cursor : PrintJobCursor.of(jobs.get(jobs.size() - 1));
+    return jobs.stream();
+  }
+
+  /**
+   * @return direction if the sort order is by timestamp only, {@code null} otherwise
+   */
+  private static Boolean seekDirection(Sort sort) {
+    if (sort.isUnsorted()) {
+      return true;
+    }
+
+    List<Sort.Order> orders = sort.toList();
+    if (orders.size() == 1 && orders.get(0).getProperty().equals("timestamp")) {
+      return orders.get(0).isDescending();
+    }
+    return null;
+  }
+}
@@ -5,6 +5,7 @@ import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.Unit;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.checkbox.Checkbox;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.Div;
@@ -22,32 +23,28 @@ import com.vaadin.flow.component.select.Select;
 import com.vaadin.flow.component.textfield.IntegerField;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.component.upload.Upload;
-import com.vaadin.flow.component.upload.receivers.FileData;
-import com.vaadin.flow.component.upload.receivers.MultiFileBuffer;
 import com.vaadin.flow.data.provider.*;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouteAlias;
-import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import de.timesnake.web.printserver.Application;
 import de.timesnake.web.printserver.data.entity.PrintJob;
 import de.timesnake.web.printserver.data.entity.Printer;
 import de.timesnake.web.printserver.data.entity.User;
 import de.timesnake.web.printserver.data.service.PrintJobRepository;
+import de.timesnake.web.printserver.data.service.PrintJobSpecifications;
 import de.timesnake.web.printserver.security.AuthenticatedUser;
 import de.timesnake.web.printserver.util.*;
 import de.timesnake.web.printserver.views.MainLayout;
+import de.timesnake.web.printserver.views.PrintJobPager;
 import elemental.json.JsonValue;
 import jakarta.annotation.security.RolesAllowed;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 
-import java.text.DecimalFormat;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
 
 @RolesAllowed(value = {"USER", "ADMIN"})
@@ -76,19 +73,20 @@ public class PrintView extends Div {
   private Select<PrintRequest.PrintPerPage> perPageSelect;
   private TextField pageRange;
   private IntegerField quantity;
+  private Checkbox combineImages;
 
   private final Grid<PrintRequest> processingGrid = new Grid<>(PrintRequest.class, false);
   private final List<PrintRequest> requests = new LinkedList<>();
 
   private final Grid<PrintJob> logGrid = new Grid<>(PrintJob.class, false);
 
-  private MultiFileBuffer fileBuffer;
+  private final SpoolReceiver spoolReceiver;
 
-  private final List<String> uploadedFileNames = new LinkedList<>();
-
-  public PrintView(PrintService printService, Config config, AuthenticatedUser user) {
+  public PrintView(PrintService printService, SpoolService spoolService, Config config, AuthenticatedUser user) {
     this.printService = printService;
     this.config = config;
+    this.spoolReceiver = new SpoolReceiver(spoolService);
+    this.addDetachListener(e -> this.spoolReceiver.discardAll());
 
     if (user.get().isEmpty()) {
       UI.getCurrent().navigate("login");
@@ -127,19 +125,21 @@ public class PrintView extends Div {
 
     uploadSection.add(new H3("Files"));
 
-    this.fileBuffer = new MultiFileBuffer();
-
-    this.upload = new Upload(this.fileBuffer);
+    this.upload = new Upload(this.spoolReceiver);
     this.upload.setDropAllowed(true);
-    this.upload.setAcceptedFileTypes("application/pdf", ".pdf", "image/jpeg", ".jpg", ".jpeg");
+    this.upload.setAcceptedFileTypes("application/pdf", ".pdf", "image/jpeg", ".jpg", ".jpeg", "image/png", ".png",
+        "image/tiff", ".tif", ".tiff");
     this.upload.setMaxFileSize(this.config.getMaxFileSizeInMB() * 1024 * 1024);
     this.upload.setMaxFiles(5);
 
     this.upload.getElement().executeJs("this.addEventListener('file-remove', " +
         "(e) => $0.$server.fileRemove(e.detail.file.name));", getElement());
 
-    this.upload.addSucceededListener(e -> {
-      PrintView.this.uploadedFileNames.add(e.getFileName());
+    this.upload.addFailedListener(e -> {
+      this.spoolReceiver.discard(e.getFileName());
+      Notification notification = Notification.show("Upload of '" + e.getFileName() + "' failed: "
+          + e.getReason().getMessage(), 5000, Notification.Position.TOP_CENTER);
+      notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
     });
 
     this.upload.addFileRejectedListener(e -> {
@@ -149,11 +149,14 @@ public class PrintView extends Div {
     });
 
     uploadSection.add(this.upload);
+
+    this.combineImages = new Checkbox("Combine images into one document");
+    uploadSection.add(this.combineImages);
   }
 
   @ClientCallable
   public void fileRemove(JsonValue event) {
-    this.uploadedFileNames.removeIf(e -> event.toJson().equals("\"" + e + "\""));
+    this.spoolReceiver.discard(event.asString());
   }
 
   private void createPrintOptionsSection() {
@@ -164,10 +167,11 @@ public class PrintView extends Div {
 
     this.printerSelect = new Select<>();
     this.printerSelect.setLabel("Printer");
-    this.printerSelect.setItems(this.printService.getPrinterRepository().findAll());
+    this.printerSelect.setItems(this.printService.getPrinterCatalog().getPrinters());
     this.printerSelect.setItemLabelGenerator(Printer::getName);
-    this.printerSelect.setPlaceholder(this.printService.getDefaultPrinter().getName());
-    this.printerSelect.setValue(this.printService.getDefaultPrinter());
+    Printer defaultPrinter = this.printService.getDefaultPrinter();
+    this.printerSelect.setPlaceholder(defaultPrinter.getName());
+    this.printerSelect.setValue(defaultPrinter);
     this.printerSelect.setWidth(15, Unit.REM);
     printOptionsSection.add(this.printerSelect);
 
@@ -240,72 +244,98 @@ public class PrintView extends Div {
   private void printFiles() {
     this.requests.clear();
 
-    for (String name : this.fileBuffer.getFiles()) {
-      FileData fileData = this.fileBuffer.getFileData(name);
+    for (PrintRequest request : this.printService.createRequests(this.spoolReceiver.takeAll(),
+        this.combineImages.getValue())) {
+      this.requests.add(this.applyOptions(request));
+    }
 
-      if (!this.uploadedFileNames.contains(fileData.getFileName())) {
-        continue;
-      }
+    this.upload.clearFileList();
+
+    this.process();
+  }
 
-      requests.add(printService.createRequest(fileData.getFile())
-          .user(this.user)
-          .name(fileData.getFileName())
-          .printer(this.printerSelect.getValue())
-          .orientation(this.orientationRadio.getValue())
-          .sides(this.sidesRadio.getValue())
-          .perPage(this.perPageSelect.getValue())
-          .range(PrintRequest.PageRange.fromString(this.pageRange.getValue()))
-          .copies(this.quantity.getValue()));
+  private void reprint(PrintJob job) {
+    if (!this.printButton.isEnabled()) {
+      Notification notification = Notification.show("Wait until the current jobs are finished", 5000,
+          Notification.Position.TOP_CENTER);
+      notification.addThemeVariants(NotificationVariant.LUMO_CONTRAST);
+      return;
     }
 
-    this.fileBuffer = new MultiFileBuffer();
-    this.upload.clearFileList();
-    this.upload.setReceiver(this.fileBuffer);
+    DocumentStore.Document document = this.printService.getDocumentStore().get(job.getDocumentHash());
+    if (document == null) {
+      Notification notification = Notification.show("'" + job.getFileName() + "' is no longer available, " +
+          "please upload it again", 5000, Notification.Position.TOP_CENTER);
+      notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
+      this.logGrid.getDataProvider().refreshItem(job);
+      return;
+    }
 
+    this.printButton.setEnabled(false);
+
+    this.requests.clear();
+    this.requests.add(this.applyOptions(this.printService.createRequest(document, job.getFileName())));
+
+    this.process();
+  }
+
+  private PrintRequest applyOptions(PrintRequest request) {
+    return request
+        .user(this.user)
+        .printer(this.printerSelect.getValue())
+        .orientation(this.orientationRadio.getValue())
+        .sides(this.sidesRadio.getValue())
+        .perPage(this.perPageSelect.getValue())
+        .range(PrintRequest.PageRange.fromString(this.pageRange.getValue()))
+        .copies(this.quantity.getValue());
+  }
+
+  private void process() {
     this.processingGrid.getDataProvider().refreshAll();
     this.logGrid.getDataProvider().refreshAll();
 
-    this.printService.getExecutorService().execute(() -> {
-      try {
-        this.printService.process(requests, new PrintListener() {
-          @Override
-          public void onPrinting(PrintRequest request) {
-            PrintView.this.getUI().ifPresent(ui -> ui.access(() -> {
-              PrintView.this.processingGrid.getDataProvider().refreshItem(request);
-              PrintView.this.getUI().get().push();
-            }));
-          }
+    this.printService.process(requests, new PrintListener() {
+      @Override
+      public void onPrinting(PrintRequest request) {
+        PrintView.this.getUI().ifPresent(ui -> ui.access(() -> {
+          PrintView.this.processingGrid.getDataProvider().refreshItem(request);
+          PrintView.this.getUI().get().push();
+        }));
+      }
 
-          @Override
-          public void onCompleted(PrintRequest request, PrintResult result) {
-            PrintView.this.getUI().ifPresent(ui -> ui.access(() -> {
-              PrintView.this.processingGrid.getDataProvider().refreshItem(request);
-              PrintView.this.logGrid.getDataProvider().refreshItem(request.getJob());
-              PrintView.this.getUI().get().push();
-            }));
-          }
+      @Override
+      public void onCompleted(PrintRequest request, PrintResult result) {
+        PrintView.this.getUI().ifPresent(ui -> ui.access(() -> {
+          PrintView.this.processingGrid.getDataProvider().refreshItem(request);
+          PrintView.this.logGrid.getDataProvider().refreshItem(request.getJob());
+          PrintView.this.getUI().get().push();
+        }));
+      }
 
-          @Override
-          public void onError(PrintResult result) {
-            PrintView.this.getUI().ifPresent(ui -> ui.access(() -> {
-              PrintView.this.processingGrid.getDataProvider().refreshItem(result.getRequest());
-              PrintView.this.getUI().get().push();
-            }));
-          }
+      @Override
+      public void onError(PrintResult result) {
+        PrintView.this.getUI().ifPresent(ui -> ui.access(() -> {
+          PrintView.this.processingGrid.getDataProvider().refreshItem(result.getRequest());
+          PrintView.this.getUI().get().push();
+        }));
+      }
 
-          @Override
-          public void onPrintUpdate(PrintRequest request, PrintResult result) {
-            PrintView.this.getUI().ifPresent(ui -> ui.access(() -> {
-              PrintView.this.processingGrid.getDataProvider().refreshItem(request);
-              PrintView.this.getUI().get().push();
-            }));
-          }
-        }).get();
-      } catch (InterruptedException | ExecutionException ex) {
+      @Override
+      public void onPrintUpdate(PrintRequest request, PrintResult result) {
+        PrintView.this.getUI().ifPresent(ui -> ui.access(() -> {
+          PrintView.this.processingGrid.getDataProvider().refreshItem(request);
+          PrintView.this.getUI().get().push();
+        }));
+      }
+    }).getResults().whenComplete((results, ex) -> {
+      if (ex != null) {
         Application.getLogger().warning("Exception while waiting for request from user '" + this.user.getUsername() + "': " + ex.getMessage());
       }
 
-      this.printButton.setEnabled(true);
+      this.getUI().ifPresent(ui -> ui.access(() -> {
+        this.printButton.setEnabled(true);
+        ui.push();
+      }));
     });
   }
 
@@ -338,10 +368,18 @@ public class PrintView extends Div {
               Icon icon = VaadinIcon.CHECK.create();
               icon.getStyle().set("padding", "var(--lumo-space-xs");
               badge.add(icon);
-              badge.add(new Span("Completed (" + new DecimalFormat("0.00").format(r.getJob().getCosts()) + " €)"));
+              badge.add(new Span("Completed (" + r.getJob().getCosts().format() + " €)"));
               badge.getElement().getThemeList().add("badge success");
             }
             case ERROR -> {
+              if (r.getResult().getErrorType() == PrintResult.ErrorType.QUEUE_FULL) {
+                Icon icon = VaadinIcon.HOURGLASS.create();
+                icon.getStyle().set("padding", "var(--lumo-space-xs");
+                badge.add(icon);
+                badge.add(new Span("Queue full"));
+                badge.getElement().getThemeList().add("badge error contrast");
+                break;
+              }
               Icon icon = VaadinIcon.EXCLAMATION_CIRCLE_O.create();
               icon.getStyle().set("padding", "var(--lumo-space-xs");
               badge.add(icon);
@@ -382,10 +420,19 @@ public class PrintView extends Div {
         .setAutoWidth(true)
         .setSortable(false)
         .setFlexGrow(0);
-    this.logGrid.addColumn(j -> new DecimalFormat("0.00").format(j.getCosts()) + " €")
+    this.logGrid.addColumn(j -> j.getCosts().format() + " €")
         .setHeader("Costs")
         .setAutoWidth(true)
-        .setSortable(true)
+        .setSortProperty("costs")
+        .setFlexGrow(0);
+    this.logGrid.addComponentColumn(j -> {
+          Button reprint = new Button(VaadinIcon.PRINT.create(), e -> this.reprint(j));
+          reprint.addThemeVariants(ButtonVariant.LUMO_TERTIARY_INLINE);
+          reprint.setTooltipText("Print again with the current options");
+          reprint.setEnabled(this.printService.getDocumentStore().contains(j.getDocumentHash()));
+          return reprint;
+        })
+        .setAutoWidth(true)
         .setFlexGrow(0);
 
     this.logGrid.setWidth(40, Unit.REM);
@@ -393,7 +440,8 @@ public class PrintView extends Div {
     this.logGrid.setMinHeight(40, Unit.REM);
     this.logGrid.addThemeVariants(GridVariant.LUMO_NO_BORDER, GridVariant.LUMO_ROW_STRIPES);
 
-    PrintJobDataProvider dataProvider = new PrintJobDataProvider(this.printService.getPrintJobRepository());
+    PrintJobDataProvider dataProvider = new PrintJobDataProvider(this.printService.getPrintJobRepository(),
+        this.user);
     ConfigurableFilterDataProvider<PrintJob, Void, PrintJobFilter> filterDataProvider =
         dataProvider.withConfigurableFilter();
     this.logGrid.setItems(filterDataProvider);
@@ -401,53 +449,32 @@ public class PrintView extends Div {
 
   public static class PrintJobDataProvider extends AbstractBackEndDataProvider<PrintJob, PrintJobFilter> {
 
-    private final PrintJobRepository printerRepository;
+    private final PrintJobRepository printJobRepository;
+    private final PrintJobPager pager;
+    private final User user;
 
-    public PrintJobDataProvider(PrintJobRepository printerRepository) {
-      this.printerRepository = printerRepository;
+    public PrintJobDataProvider(PrintJobRepository printJobRepository, User user) {
+      this.printJobRepository = printJobRepository;
+      this.pager = new PrintJobPager(printJobRepository);
+      this.user = user;
     }
 
     @Override
     protected Stream<PrintJob> fetchFromBackEnd(Query<PrintJob, PrintJobFilter> query) {
-      Stream<PrintJob> stream = printerRepository.findAll(PageRequest.of(query.getPage(), query.getPageSize(),
-          VaadinSpringDataHelpers.toSpringDataSort(query))).stream();
-
-      // Filtering
-      if (query.getFilter().isPresent()) {
-        stream = stream.filter(cmd -> query.getFilter().get().test(cmd));
-      }
-
-      // Sorting
-      if (!query.getSortOrders().isEmpty()) {
-        stream = stream.sorted(sortComparator(query.getSortOrders()));
-      }
-
-      return stream;
+      return this.pager.fetch(this.toSpecification(query), query);
     }
 
     @Override
     protected int sizeInBackEnd(Query<PrintJob, PrintJobFilter> query) {
-      return (int) fetchFromBackEnd(query).count();
+      return (int) printJobRepository.count(this.toSpecification(query));
     }
 
-    private static Comparator<PrintJob> sortComparator(List<QuerySortOrder> sortOrders) {
-      return sortOrders.stream().map(sortOrder -> {
-        Comparator<PrintJob> comparator = fieldComparator(sortOrder.getSorted());
-
-        if (sortOrder.getDirection() == SortDirection.DESCENDING) {
-          comparator = comparator.reversed();
-        }
-
-        return comparator;
-      }).reduce(Comparator::thenComparing).orElse((p1, p2) -> 0);
-    }
-
-    private static Comparator<PrintJob> fieldComparator(String sorted) {
-      return switch (sorted) {
-        case "timestamp" -> Comparator.comparing(PrintJob::getTimestamp);
-        case "fileName" -> Comparator.comparing(PrintJob::getFileName);
-        default -> Comparator.comparing(PrintJob::getTimestamp).reversed();
-      };
+    private Specification<PrintJob> toSpecification(Query<PrintJob, PrintJobFilter> query) {
+      Specification<PrintJob> specification = PrintJobSpecifications.byUser(this.user);
+      if (query.getFilter().isPresent()) {
+        specification = specification.and(query.getFilter().get().toSpecification());
+      }
+      return specification;
     }
   }
 
@@ -459,13 +486,8 @@ public class PrintView extends Div {
       this.searchTerm = searchTerm;
     }
 
-    public boolean test(PrintJob cmd) {
-      return matches(cmd.getFileName(), searchTerm);
-    }
-
-    private boolean matches(String value, String searchTerm) {
-      return searchTerm == null || searchTerm.isEmpty()
-          || value.toLowerCase().contains(searchTerm.toLowerCase());
+    public Specification<PrintJob> toSpecification() {
+      return PrintJobSpecifications.fileNameContains(searchTerm);
     }
   }
 }
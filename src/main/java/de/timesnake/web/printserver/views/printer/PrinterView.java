@@ -13,19 +13,20 @@ import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
-import com.vaadin.flow.data.provider.*;
+import com.vaadin.flow.data.provider.AbstractBackEndDataProvider;
+import com.vaadin.flow.data.provider.ConfigurableFilterDataProvider;
+import com.vaadin.flow.data.provider.Query;
 import com.vaadin.flow.data.value.ValueChangeMode;
-import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import de.timesnake.web.printserver.data.entity.PrintJob;
 import de.timesnake.web.printserver.data.entity.Printer;
 import de.timesnake.web.printserver.data.service.PrintJobRepository;
+import de.timesnake.web.printserver.data.service.PrintJobSpecifications;
 import de.timesnake.web.printserver.util.PrintService;
-import org.springframework.data.domain.PageRequest;
+import de.timesnake.web.printserver.views.PrintJobPager;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
-import java.util.List;
 import java.util.stream.Stream;
 
 public class PrinterView extends VerticalLayout {
@@ -96,7 +97,7 @@ public class PrinterView extends VerticalLayout {
         .setFlexGrow(0);
 
     grid.addThemeVariants(GridVariant.LUMO_NO_BORDER, GridVariant.LUMO_ROW_STRIPES);
-    grid.setAllRowsVisible(true);
+    grid.setMinHeight(40, Unit.REM);
     grid.setMaxHeight(100, Unit.PERCENTAGE);
 
 
@@ -119,53 +120,37 @@ public class PrinterView extends VerticalLayout {
 
   public class PrintJobDataProvider extends AbstractBackEndDataProvider<PrintJob, PrintJobFilter> {
 
-    private final PrintJobRepository printerRepository;
+    private final PrintJobRepository printJobRepository;
+    private final PrintJobPager pager;
 
-    public PrintJobDataProvider(PrintJobRepository printerRepository) {
-      this.printerRepository = printerRepository;
+    public PrintJobDataProvider(PrintJobRepository printJobRepository) {
+      this.printJobRepository = printJobRepository;
+      this.pager = new PrintJobPager(printJobRepository);
     }
 
     @Override
     protected Stream<PrintJob> fetchFromBackEnd(Query<PrintJob, PrintJobFilter> query) {
-      Stream<PrintJob> stream = printerRepository.getPrintJobsByPrinter(PageRequest.of(query.getPage(), query.getPageSize(),
-              VaadinSpringDataHelpers.toSpringDataSort(query)), PrinterView.this.printer).stream();
-
-      // Filtering
-      if (query.getFilter().isPresent()) {
-        stream = stream.filter(cmd -> query.getFilter().get().test(cmd));
-      }
-
-      // Sorting
-      if (!query.getSortOrders().isEmpty()) {
-        stream = stream.sorted(sortComparator(query.getSortOrders()));
+      if (PrinterView.this.printer == null) {
+        return Stream.empty();
       }
 
-      return stream;
+      return this.pager.fetch(this.toSpecification(query), query);
     }
 
     @Override
     protected int sizeInBackEnd(Query<PrintJob, PrintJobFilter> query) {
-      return (int) fetchFromBackEnd(query).count();
-    }
-
-    private static Comparator<PrintJob> sortComparator(List<QuerySortOrder> sortOrders) {
-      return sortOrders.stream().map(sortOrder -> {
-        Comparator<PrintJob> comparator = fieldComparator(sortOrder.getSorted());
-
-        if (sortOrder.getDirection() == SortDirection.DESCENDING) {
-          comparator = comparator.reversed();
-        }
-
-        return comparator;
-      }).reduce(Comparator::thenComparing).orElse((p1, p2) -> 0);
+      if (PrinterView.this.printer == null) {
+        return 0;
+      }
+      return (int) printJobRepository.count(this.toSpecification(query));
     }
 
-    private static Comparator<PrintJob> fieldComparator(String sorted) {
-      return switch (sorted) {
-        case "timestamp" -> Comparator.comparing(PrintJob::getTimestamp);
-        case "fileName" -> Comparator.comparing(PrintJob::getFileName);
-        default -> Comparator.comparing(PrintJob::getTimestamp).reversed();
-      };
+    private Specification<PrintJob> toSpecification(Query<PrintJob, PrintJobFilter> query) {
+      Specification<PrintJob> specification = PrintJobSpecifications.byPrinter(PrinterView.this.printer);
+      if (query.getFilter().isPresent()) {
+        specification = specification.and(query.getFilter().get().toSpecification());
+      }
+      return specification;
     }
   }
 
@@ -177,13 +162,8 @@ public class PrinterView extends VerticalLayout {
       this.searchTerm = searchTerm;
     }
 
-    public boolean test(PrintJob cmd) {
-      return matches(cmd.getFileName(), searchTerm);
-    }
-
-    private boolean matches(String value, String searchTerm) {
-      return searchTerm == null || searchTerm.isEmpty()
-          || value.toLowerCase().contains(searchTerm.toLowerCase());
+    public Specification<PrintJob> toSpecification() {
+      return PrintJobSpecifications.fileNameContains(searchTerm);
     }
   }
 }
@@ -21,7 +21,7 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.binder.BeanValidationBinder;
 import com.vaadin.flow.data.binder.ValidationException;
-import com.vaadin.flow.data.converter.StringToDoubleConverter;
+import com.vaadin.flow.data.converter.StringToBigDecimalConverter;
 import com.vaadin.flow.data.converter.StringToIntegerConverter;
 import com.vaadin.flow.data.provider.*;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
@@ -32,7 +32,10 @@ import com.vaadin.flow.router.Route;
 import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import de.timesnake.web.printserver.data.entity.Printer;
 import de.timesnake.web.printserver.data.entity.PrinterRepository;
+import de.timesnake.web.printserver.util.PrintDispatcher;
 import de.timesnake.web.printserver.util.PrintService;
+import de.timesnake.web.printserver.util.PrinterCatalog;
+import de.timesnake.web.printserver.util.PrinterQueue;
 import de.timesnake.web.printserver.views.MainLayout;
 import jakarta.annotation.security.RolesAllowed;
 import org.springframework.data.domain.PageRequest;
@@ -57,6 +60,8 @@ public class PrintersView extends Div implements BeforeEnterObserver {
   private BeanValidationBinder<Printer> binder;
 
   private final PrinterRepository printerRepository;
+  private final PrinterCatalog printerCatalog;
+  private final PrintDispatcher dispatcher;
 
   private final PrinterDataProvider dataProvider;
   private final PrinterFilter printerFilter = new PrinterFilter();
@@ -68,6 +73,8 @@ public class PrintersView extends Div implements BeforeEnterObserver {
 
   public PrintersView(PrintService printService) {
     this.printerRepository = printService.getPrinterRepository();
+    this.printerCatalog = printService.getPrinterCatalog();
+    this.dispatcher = printService.getDispatcher();
 
     this.dataProvider = new PrinterDataProvider(printerRepository);
     this.filterDataProvider = dataProvider.withConfigurableFilter();
@@ -137,6 +144,21 @@ public class PrintersView extends Div implements BeforeEnterObserver {
         .setHeader("Priority")
         .setAutoWidth(true)
         .setFlexGrow(0);
+    grid.addColumn(printer -> {
+          PrinterQueue queue = this.dispatcher.getQueue(printer);
+          return queue.getRunning() + "/" + queue.getConcurrency() + " running, "
+              + queue.getQueueDepth() + "/" + queue.getCapacity() + " queued";
+        })
+        .setHeader("Queue")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
+    grid.addColumn(printer -> {
+          PrinterQueue queue = this.dispatcher.getQueue(printer);
+          return queue.getAverageWaitTime().toSeconds() + " s (max " + queue.getMaxWaitTime().toSeconds() + " s)";
+        })
+        .setHeader("Avg. Wait")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
     grid.addColumn(
             new ComponentRenderer<>(Button::new, (button, printer) -> {
               button.addThemeVariants(ButtonVariant.LUMO_ICON, ButtonVariant.LUMO_TERTIARY);
@@ -168,8 +190,7 @@ public class PrintersView extends Div implements BeforeEnterObserver {
   public void beforeEnter(BeforeEnterEvent event) {
     Optional<Long> printerId = event.getRouteParameters().get("printerID").map(Long::parseLong);
     if (printerId.isPresent()) {
-      Optional<Printer> printerFromBackend = this.printerRepository.findById(printerId.get());
-      printerFromBackend.ifPresent(this.printerView::setPrinter);
+      Optional.ofNullable(this.printerCatalog.getById(printerId.get())).ifPresent(this.printerView::setPrinter);
     }
   }
 
@@ -203,9 +224,9 @@ public class PrintersView extends Div implements BeforeEnterObserver {
     binder = new BeanValidationBinder<>(Printer.class);
     binder.bind(name, "name");
     binder.bind(cupsName, "cupsName");
-    binder.forField(priceOneSided).withConverter(new StringToDoubleConverter("Only floating point numbers are " +
+    binder.forField(priceOneSided).withConverter(new StringToBigDecimalConverter("Only floating point numbers are " +
         "allowed")).bind("priceOneSided");
-    binder.forField(priceTwoSided).withConverter(new StringToDoubleConverter("Only floating point numbers are " +
+    binder.forField(priceTwoSided).withConverter(new StringToBigDecimalConverter("Only floating point numbers are " +
         "allowed")).bind("priceTwoSided");
     binder.forField(priority).withConverter(new StringToIntegerConverter("Only floating point numbers are " +
         "allowed")).bind("priority");
@@ -229,7 +250,7 @@ public class PrintersView extends Div implements BeforeEnterObserver {
           this.printer = new Printer();
         }
         binder.writeBean(this.printer);
-        printerRepository.save(this.printer);
+        printerCatalog.save(this.printer);
         clearForm();
         refreshGrid();
         this.popup.close();
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.views.timing;
+
+import com.vaadin.flow.component.Unit;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.html.H3;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.select.Select;
+import com.vaadin.flow.router.Route;
+import de.timesnake.web.printserver.util.PhaseTimingService;
+import de.timesnake.web.printserver.views.MainLayout;
+import jakarta.annotation.security.RolesAllowed;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Percentiles of the phase durations of completed jobs per printer, to find out where the time of slow jobs
+ * went.
+ */
+@RolesAllowed(value = {"ADMIN"})
+@Route(value = "timings", layout = MainLayout.class)
+public class TimingsView extends VerticalLayout {
+
+  private static final List<Duration> WINDOWS = List.of(Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7),
+      Duration.ofDays(30));
+
+  private final Grid<PhaseTimingService.PhaseTimings> grid = new Grid<>();
+
+  private final PhaseTimingService phaseTimingService;
+
+  public TimingsView(PhaseTimingService phaseTimingService) {
+    this.phaseTimingService = phaseTimingService;
+
+    add(new H3("Job Timings"));
+
+    Select<Duration> windowSelect = new Select<>();
+    windowSelect.setLabel("Jobs completed within the last");
+    windowSelect.setItems(WINDOWS);
+    windowSelect.setItemLabelGenerator(TimingsView::formatWindow);
+    windowSelect.addValueChangeListener(e -> this.refreshGrid(e.getValue()));
+    add(windowSelect);
+
+    add(grid);
+
+    grid.addColumn(PhaseTimingService.PhaseTimings::printer)
+        .setHeader("Printer")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
+    grid.addColumn(t -> t.phase().getName())
+        .setHeader("Phase")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
+    grid.addColumn(PhaseTimingService.PhaseTimings::jobs)
+        .setHeader("Jobs")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
+    grid.addColumn(t -> formatMillis(t.p50()))
+        .setHeader("Median")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
+    grid.addColumn(t -> formatMillis(t.p90()))
+        .setHeader("90 %")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
+    grid.addColumn(t -> formatMillis(t.p99()))
+        .setHeader("99 %")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
+    grid.addColumn(t -> formatMillis(t.max()))
+        .setHeader("Max")
+        .setAutoWidth(true)
+        .setFlexGrow(0);
+
+    grid.addThemeVariants(GridVariant.LUMO_NO_BORDER, GridVariant.LUMO_ROW_STRIPES);
+    grid.setMinHeight(40, Unit.REM);
+    grid.setMaxHeight(100, Unit.PERCENTAGE);
+
+    windowSelect.setValue(Duration.ofDays(1));
+  }
+
+  private void refreshGrid(Duration window) {
+    grid.setItems(this.phaseTimingService.getTimings(window));
+    grid.recalculateColumnWidths();
+  }
+
+  private static String formatWindow(Duration window) {
+    return window.toDays() > 0 ? window.toDays() + (window.toDays() == 1 ? " day" : " days") :
+        window.toHours() + (window.toHours() == 1 ? " hour" : " hours");
+  }
+
+  private static String formatMillis(int millis) {
+    if (millis < 1000) {
+      return millis + " ms";
+    }
+    if (millis < 60_000) {
+      return String.format("%.1f s", millis / 1000d);
+    }
+    return String.format("%d min %d s", millis / 60_000, millis / 1000 % 60);
+  }
+}
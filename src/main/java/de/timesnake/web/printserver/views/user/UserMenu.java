@@ -22,30 +22,35 @@ import com.vaadin.flow.component.textfield.PasswordField;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.binder.BeanValidationBinder;
 import com.vaadin.flow.data.binder.ValidationException;
-import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.component.upload.Upload;
+import com.vaadin.flow.component.upload.receivers.MemoryBuffer;
+import de.timesnake.web.printserver.api.ProfilePictureController;
 import de.timesnake.web.printserver.data.entity.User;
 import de.timesnake.web.printserver.data.service.UserService;
 import de.timesnake.web.printserver.security.AuthenticatedUser;
 import de.timesnake.web.printserver.security.SecurityConfiguration;
+import de.timesnake.web.printserver.util.ProfilePictureService;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
-import de.timesnake.web.printserver.data.entity.User;
-import de.timesnake.web.printserver.security.AuthenticatedUser;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Optional;
 
 public class UserMenu extends Div {
 
   private final UserService userService;
+  private final ProfilePictureService profilePictureService;
   private final SecurityConfiguration securityConfiguration;
 
   private User user;
+  private Avatar avatar;
 
   private Dialog settingsDialog;
 
-  public UserMenu(UserService userService, SecurityConfiguration securityConfiguration,
-                  AuthenticatedUser authenticatedUser, boolean showSettings) {
+  public UserMenu(UserService userService, ProfilePictureService profilePictureService,
+                  SecurityConfiguration securityConfiguration, AuthenticatedUser authenticatedUser,
+                  boolean showSettings) {
     this.userService = userService;
+    this.profilePictureService = profilePictureService;
     this.securityConfiguration = securityConfiguration;
 
     this.getStyle().setPadding("var(--lumo-space-s)");
@@ -54,10 +59,8 @@ public class UserMenu extends Div {
     if (maybeUser.isPresent()) {
       this.user = maybeUser.get();
 
-      Avatar avatar = new Avatar(user.getName());
-      StreamResource resource = new StreamResource("profile-pic",
-          () -> new ByteArrayInputStream(user.getProfilePicture()));
-      avatar.setImageResource(resource);
+      this.avatar = new Avatar(user.getName());
+      this.updateAvatar(this.profilePictureService.getEtag(user.getId()));
       avatar.setThemeName("xsmall");
       avatar.getElement().setAttribute("tabindex", "-1");
 
@@ -86,6 +89,12 @@ public class UserMenu extends Div {
     }
   }
 
+  private void updateAvatar(String etag) {
+    if (etag != null) {
+      this.avatar.setImage(ProfilePictureController.getUrl(this.user.getId(), etag));
+    }
+  }
+
   private Dialog createSettingsDialog(User user) {
     Dialog dialog = new Dialog();
 
@@ -102,7 +111,24 @@ public class UserMenu extends Div {
     TextField name = new TextField("Name");
     PasswordField password = new PasswordField("Password");
 
-    formLayout.add(username, name, password);
+    MemoryBuffer pictureBuffer = new MemoryBuffer();
+    Upload picture = new Upload(pictureBuffer);
+    picture.setAcceptedFileTypes("image/png", "image/jpeg", "image/gif");
+    picture.setMaxFileSize(this.profilePictureService.getMaxSize());
+    picture.setMaxFiles(1);
+    picture.setUploadButton(new Button("Profile Picture"));
+    picture.addSucceededListener(e -> {
+      try {
+        this.updateAvatar(this.profilePictureService.store(this.user.getId(),
+            pictureBuffer.getInputStream().readAllBytes()));
+      } catch (IOException ex) {
+        Notification n = Notification.show("Unable to save profile picture: " + ex.getMessage());
+        n.addThemeVariants(NotificationVariant.LUMO_ERROR);
+      }
+      picture.clearFileList();
+    });
+
+    formLayout.add(username, name, password, picture);
     editorDiv.add(formLayout);
 
     BeanValidationBinder<User> binder = new BeanValidationBinder<>(User.class);
@@ -125,9 +151,6 @@ public class UserMenu extends Div {
     save.addClickListener(e -> {
       try {
         binder.writeBean(this.user);
-        if (user.getProfilePicture() == null) {
-          user.setProfilePicture(new byte[]{});
-        }
         userService.update(this.user);
         dialog.close();
       } catch (ObjectOptimisticLockingFailureException exception) {
@@ -37,10 +37,12 @@ import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import com.vaadin.flow.theme.lumo.LumoUtility;
+import de.timesnake.web.printserver.data.Money;
 import de.timesnake.web.printserver.data.Role;
-import de.timesnake.web.printserver.data.entity.PrintJob;
 import de.timesnake.web.printserver.data.entity.User;
+import de.timesnake.web.printserver.data.service.UserBalanceService;
 import de.timesnake.web.printserver.data.service.UserService;
+import de.timesnake.web.printserver.data.service.UserTotals;
 import de.timesnake.web.printserver.security.SecurityConfiguration;
 import de.timesnake.web.printserver.util.PrintService;
 import de.timesnake.web.printserver.views.MainLayout;
@@ -48,10 +50,7 @@ import jakarta.annotation.security.RolesAllowed;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
-import java.text.DecimalFormat;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Stream;
 
 @PageTitle("Users")
@@ -80,7 +79,7 @@ public class UserView extends Div implements BeforeEnterObserver {
     this.printService = printService;
     this.userService = userService;
     this.securityConfiguration = securityConfiguration;
-    this.dataProvider = new ConsumerDataProvider(userService);
+    this.dataProvider = new ConsumerDataProvider(userService, printService.getBalanceService());
     this.filterDataProvider = dataProvider.withConfigurableFilter();
 
     this.createConsumerPopupDialog();
@@ -109,13 +108,11 @@ public class UserView extends Div implements BeforeEnterObserver {
 
     grid.addColumn("username").setAutoWidth(true).setFlexGrow(0);
     grid.addColumn("name").setAutoWidth(true).setFlexGrow(0);
-    grid.addColumn(u -> this.printService.getPrintJobRepository().findByUser(u).stream()
-        .mapToInt(PrintJob::getPrintedPages).sum())
+    grid.addColumn(u -> this.dataProvider.getPages(u))
         .setHeader("Pages")
         .setAutoWidth(true)
         .setFlexGrow(0);
-    grid.addColumn(u -> new DecimalFormat("0.00").format(this.printService.getPrintJobRepository()
-            .findByUser(u).stream().mapToDouble(PrintJob::getCosts).sum()) + " €")
+    grid.addColumn(u -> this.dataProvider.getCosts(u).format() + " €")
         .setHeader("Balance")
         .setAutoWidth(true)
         .setFlexGrow(0);
@@ -130,7 +127,10 @@ public class UserView extends Div implements BeforeEnterObserver {
             warning.addClassName(LumoUtility.TextColor.ERROR);
             confirmDialog.setText(new VerticalLayout(text, warning));
 
-            confirmDialog.addConfirmListener(ev -> this.printService.getPrintJobRepository().deleteByUser(u));
+            confirmDialog.addConfirmListener(ev -> {
+              this.printService.getBalanceService().deleteJobs(u);
+              this.refreshGrid();
+            });
             confirmDialog.setCloseOnEsc(true);
             confirmDialog.setCancelable(true);
             confirmDialog.open();
@@ -151,8 +151,9 @@ public class UserView extends Div implements BeforeEnterObserver {
             confirmDialog.setText(new VerticalLayout(text, warning));
 
             confirmDialog.addConfirmListener(ev -> {
-              this.printService.getPrintJobRepository().deleteByUser(u);
+              this.printService.getBalanceService().deleteJobs(u);
               this.userService.delete(u.getId());
+              this.refreshGrid();
             });
             confirmDialog.setCloseOnEsc(true);
             confirmDialog.setCancelable(true);
@@ -232,9 +233,6 @@ public class UserView extends Div implements BeforeEnterObserver {
         }
         binder.writeBean(this.user);
         this.user.setRoles(roleList.getSelectedItems());
-        if (user.getProfilePicture() == null) {
-          user.setProfilePicture(new byte[]{});
-        }
         userService.update(this.user);
         clearForm();
         refreshGrid();
@@ -309,9 +307,13 @@ public class UserView extends Div implements BeforeEnterObserver {
   public static class ConsumerDataProvider extends AbstractBackEndDataProvider<User, UserFilter> {
 
     private final UserService userService;
+    private final UserBalanceService balanceService;
 
-    public ConsumerDataProvider(UserService userService) {
+    private final Map<Long, UserTotals> totals = new HashMap<>();
+
+    public ConsumerDataProvider(UserService userService, UserBalanceService balanceService) {
       this.userService = userService;
+      this.balanceService = balanceService;
     }
 
     @Override
@@ -329,12 +331,35 @@ public class UserView extends Div implements BeforeEnterObserver {
         stream = stream.sorted(sortComparator(query.getSortOrders()));
       }
 
-      return stream;
+      List<User> users = stream.toList();
+      this.fetchTotals(users);
+      return users.stream();
+    }
+
+    private void fetchTotals(List<User> users) {
+      List<Long> userIds = users.stream().map(User::getId).toList();
+      userIds.forEach(this.totals::remove);
+      if (!userIds.isEmpty()) {
+        this.totals.putAll(this.balanceService.get(userIds));
+      }
+    }
+
+    public long getPages(User user) {
+      UserTotals userTotals = this.totals.get(user.getId());
+      return userTotals != null && userTotals.getPages() != null ? userTotals.getPages() : 0;
+    }
+
+    public Money getCosts(User user) {
+      UserTotals userTotals = this.totals.get(user.getId());
+      return userTotals != null && userTotals.getCosts() != null ? Money.ofCents(userTotals.getCosts()) : Money.ZERO;
     }
 
     @Override
     protected int sizeInBackEnd(Query<User, UserFilter> query) {
-      return (int) fetchFromBackEnd(query).count();
+      return (int) userService.list(PageRequest.of(query.getPage(), query.getPageSize(),
+              VaadinSpringDataHelpers.toSpringDataSort(query))).stream()
+          .filter(u -> query.getFilter().map(f -> f.test(u)).orElse(true))
+          .count();
     }
 
     private static Comparator<User> sortComparator(List<QuerySortOrder> sortOrders) {
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2023 timesnake
+ */
+
+package de.timesnake.web.printserver.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link PrintRequest.PageRange} against a {@link BitSet} of the selected pages, built by a separate
+ * regex based parser, on random and adversarial inputs.
+ */
+class PageRangeTest {
+
+  private static final Pattern VALID = Pattern.compile(" *\\d{1,9} *(- *\\d{1,9} *)?(, *\\d{1,9} *(- *\\d{1,9} *)?)*");
+  private static final Pattern PART = Pattern.compile("(\\d+) *(?:- *(\\d+))?");
+
+  private static final int MAX_PAGE = 200;
+
+  /**
+   * @return the selected pages or {@code null} if the string is not a valid range
+   */
+  private static BitSet oracle(String s) {
+    if (!VALID.matcher(s).matches()) {
+      return null;
+    }
+
+    BitSet pages = new BitSet();
+    Matcher matcher = PART.matcher(s);
+    while (matcher.find()) {
+      int lower = Integer.parseInt(matcher.group(1));
+      int upper = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : lower;
+      if (lower == 0 || upper < lower) {
+        return null;
+      }
+      pages.set(lower, upper + 1);
+    }
+    return pages;
+  }
+
+  private static String randomRange(Random random) {
+    StringBuilder sb = new StringBuilder();
+    int parts = 1 + random.nextInt(6);
+    for (int i = 0; i < parts; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      int lower = 1 + random.nextInt(MAX_PAGE - 20);
+      sb.append(" ".repeat(random.nextInt(2))).append(lower).append(" ".repeat(random.nextInt(2)));
+      if (random.nextBoolean()) {
+        sb.append('-').append(" ".repeat(random.nextInt(2))).append(lower + random.nextInt(20));
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return a string of separators and numbers below 1000, mostly invalid. Numbers are never adjacent, so the
+   * oracle and {@link PrintRequest.PageRange#forEach} can expand every range.
+   */
+  private static String randomGarbage(Random random) {
+    String[] tokens = {"0", "1", "2", "7", "07", "12", "150", ",", ",", "-", "-", " ", "x"};
+    StringBuilder sb = new StringBuilder();
+    int length = random.nextInt(10);
+    boolean number = false;
+    for (int i = 0; i < length; i++) {
+      String token = tokens[random.nextInt(tokens.length)];
+      boolean digits = Character.isDigit(token.charAt(0));
+      if (!(number && digits)) {
+        sb.append(token);
+        number = digits;
+      }
+    }
+    return sb.toString();
+  }
+
+  private static void check(String s) {
+    BitSet expected = oracle(s);
+    PrintRequest.PageRange range = PrintRequest.PageRange.fromString(s);
+    if (expected == null) {
+      assertNull(range, "'" + s + "' should be invalid");
+      return;
+    }
+    assertNotNull(range, "'" + s + "' should be valid");
+    assertEquals(expected.cardinality(), range.getPageCount(), s);
+
+    List<Integer> pages = new ArrayList<>();
+    range.forEach(pages::add);
+    assertEquals(expected.stream().boxed().toList(), pages, s);
+
+    List<Integer> iterated = new ArrayList<>();
+    PrimitiveIterator.OfInt iterator = range.iterator();
+    while (iterator.hasNext()) {
+      iterated.add(iterator.nextInt());
+    }
+    assertEquals(pages, iterated, s);
+
+    for (int page = 0; page <= MAX_PAGE + 1; page++) {
+      assertEquals(expected.get(page), range.contains(page), s + " contains " + page);
+    }
+
+    for (int documentPages = 0; documentPages <= MAX_PAGE + 1; documentPages += 7) {
+      BitSet clamped = expected.get(0, documentPages + 1);
+      assertEquals(clamped.cardinality(), range.getPageCount(documentPages), s + " within " + documentPages);
+      assertArrayEquals(clamped.stream().toArray(), range.toArray(documentPages), s + " within " + documentPages);
+
+      PrintRequest.PageRange intersection = range.intersect(documentPages);
+      if (clamped.isEmpty()) {
+        assertNull(intersection, s + " within " + documentPages);
+      } else {
+        List<Integer> intersected = new ArrayList<>();
+        intersection.forEach(intersected::add);
+        assertEquals(clamped.stream().boxed().toList(), intersected, s + " within " + documentPages);
+      }
+    }
+
+    PrintRequest.PageRange parsed = PrintRequest.PageRange.fromString(range.toString());
+    assertEquals(range, parsed, s);
+    assertEquals(range.toString(), parsed.toString(), s);
+  }
+
+  @Test
+  void randomRanges() {
+    Random random = new Random(42);
+    for (int i = 0; i < 5000; i++) {
+      check(randomRange(random));
+    }
+  }
+
+  @Test
+  void randomGarbage() {
+    Random random = new Random(42);
+    for (int i = 0; i < 20000; i++) {
+      check(randomGarbage(random));
+    }
+  }
+
+  @Test
+  void adversarialStrings() {
+    for (String s : new String[]{"", " ", ",", "1,", ",1", "-1", "1-", "0", "0-3", "5-3", "1,,2", "1 2", "1--3",
+        "1-3-5", " 1 - 3 , 7 ", "007", "3,1-4,2", "1-5,2-3", "1-2,3-4", "1-2,4-5", "10-10",
+        "999999999", "0000000001", "1-0000000002", "1,x", "1\t2"}) {
+      check(s);
+    }
+  }
+
+  @Test
+  void hugeRanges() {
+    PrintRequest.PageRange range = PrintRequest.PageRange.fromString("1-999999999,5");
+    assertNotNull(range);
+    assertEquals(999999999L, range.getPageCount());
+    assertEquals(3, range.getPageCount(3));
+    assertArrayEquals(new int[]{1, 2, 3}, range.toArray(3));
+    assertEquals("1-3", range.intersect(3).toString());
+    assertEquals("1-999999999", range.toString());
+
+    assertNull(PrintRequest.PageRange.fromString("1-9999999999"));
+  }
+}